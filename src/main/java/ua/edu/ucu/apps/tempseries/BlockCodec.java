@@ -0,0 +1,213 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * Lossless encodings of a block of doubles into a long[] bit stream. A
+ * block whose samples all have at most MAX_DECIMALS decimal places is
+ * stored as fixed-point deltas bit-packed at the width of the largest
+ * one, which costs a few bits per sample for slowly changing readings.
+ * Any other block is XOR-encoded as in Facebook's Gorilla: a zero bit for
+ * a repeated value, otherwise only the meaningful bits of the XOR with the
+ * previous value.
+ */
+final class BlockCodec {
+    private static final int MAX_DECIMALS = 4;
+    private static final double[] SCALES = {1, 10, 100, 1000, 10000};
+    private static final long MAX_FIXED = 1L << 52;
+    private static final int FIXED = 0;
+    private static final int XOR = 1;
+    private static final int TAG_BITS = 1;
+    private static final int DECIMAL_BITS = 3;
+    private static final int WIDTH_BITS = 7;
+    private static final int LEAD_BITS = 5;
+    private static final int MAX_LEAD = (1 << LEAD_BITS) - 1;
+    private static final int LENGTH_BITS = 6;
+    private static final int WORD_SHIFT = 6;
+
+    private BlockCodec() {
+    }
+
+    static long[] encode(double[] values, int count) {
+        BitWriter out = new BitWriter();
+        for (int decimals = 0; decimals <= MAX_DECIMALS; decimals++) {
+            long[] fixed = toFixed(values, count, SCALES[decimals]);
+            if (fixed != null) {
+                out.write(FIXED, TAG_BITS);
+                out.write(decimals, DECIMAL_BITS);
+                encodeFixed(fixed, count, out);
+                return out.toArray();
+            }
+        }
+        out.write(XOR, TAG_BITS);
+        encodeXor(values, count, out);
+        return out.toArray();
+    }
+
+    static void decode(long[] words, int count, double[] target,
+            int offset) {
+        BitReader in = new BitReader(words);
+        if (in.read(TAG_BITS) == FIXED) {
+            double scale = SCALES[(int) in.read(DECIMAL_BITS)];
+            int width = (int) in.read(WIDTH_BITS);
+            long fixed = in.read(Long.SIZE);
+            target[offset] = fixed / scale;
+            for (int i = 1; i < count; i++) {
+                long zigzag = in.read(width);
+                fixed += (zigzag >>> 1) ^ -(zigzag & 1);
+                target[offset + i] = fixed / scale;
+            }
+        } else {
+            decodeXor(in, count, target, offset);
+        }
+    }
+
+    /*
+     * A sample is representable when dividing its rounded fixed-point
+     * value by the scale gives back exactly the same bits, which also
+     * rules out NaN, infinities and negative zero.
+     */
+    private static long[] toFixed(double[] values, int count, double scale) {
+        long[] fixed = new long[count];
+        for (int i = 0; i < count; i++) {
+            double scaled = Math.rint(values[i] * scale);
+            if (!(Math.abs(scaled) < MAX_FIXED)) {
+                return null;
+            }
+            fixed[i] = (long) scaled;
+            if (Double.doubleToRawLongBits(fixed[i] / scale)
+                    != Double.doubleToRawLongBits(values[i])) {
+                return null;
+            }
+        }
+        return fixed;
+    }
+
+    private static void encodeFixed(long[] fixed, int count, BitWriter out) {
+        long widest = 0;
+        for (int i = 1; i < count; i++) {
+            widest |= zigzag(fixed[i] - fixed[i - 1]);
+        }
+        int width = Long.SIZE - Long.numberOfLeadingZeros(widest);
+        out.write(width, WIDTH_BITS);
+        out.write(fixed[0], Long.SIZE);
+        for (int i = 1; i < count; i++) {
+            out.write(zigzag(fixed[i] - fixed[i - 1]), width);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    private static void encodeXor(double[] values, int count, BitWriter out) {
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.write(previous, Long.SIZE);
+        int previousLead = -1;
+        int previousTrail = 0;
+        for (int i = 1; i < count; i++) {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            out.write(1, 1);
+            int lead = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEAD);
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (previousLead >= 0 && lead >= previousLead
+                    && trail >= previousTrail) {
+                out.write(0, 1);
+                out.write(xor >>> previousTrail,
+                        Long.SIZE - previousLead - previousTrail);
+                continue;
+            }
+            int meaningful = Long.SIZE - lead - trail;
+            out.write(1, 1);
+            out.write(lead, LEAD_BITS);
+            out.write(meaningful & (Long.SIZE - 1), LENGTH_BITS);
+            out.write(xor >>> trail, meaningful);
+            previousLead = lead;
+            previousTrail = trail;
+        }
+    }
+
+    private static void decodeXor(BitReader in, int count, double[] target,
+            int offset) {
+        long previous = in.read(Long.SIZE);
+        target[offset] = Double.longBitsToDouble(previous);
+        int lead = 0;
+        int trail = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    lead = (int) in.read(LEAD_BITS);
+                    int meaningful = (int) in.read(LENGTH_BITS);
+                    if (meaningful == 0) {
+                        meaningful = Long.SIZE;
+                    }
+                    trail = Long.SIZE - lead - meaningful;
+                }
+                previous ^= in.read(Long.SIZE - lead - trail) << trail;
+            }
+            target[offset + i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    private static final class BitWriter {
+        private long[] words = new long[2];
+        private long position;
+
+        void write(long value, int bits) {
+            if (bits == 0) {
+                return;
+            }
+            long masked = value;
+            if (bits < Long.SIZE) {
+                masked &= (1L << bits) - 1;
+            }
+            int index = (int) (position >>> WORD_SHIFT);
+            int used = (int) (position & (Long.SIZE - 1));
+            if (index + 1 >= words.length) {
+                words = Arrays.copyOf(words, 2 * words.length);
+            }
+            words[index] |= masked << used;
+            if (used + bits > Long.SIZE) {
+                words[index + 1] = masked >>> (Long.SIZE - used);
+            }
+            position += bits;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words,
+                    (int) ((position + Long.SIZE - 1) >>> WORD_SHIFT));
+        }
+    }
+
+    private static final class BitReader {
+        private final long[] words;
+        private long position;
+
+        BitReader(long[] words) {
+            this.words = words;
+        }
+
+        long read(int bits) {
+            if (bits == 0) {
+                return 0;
+            }
+            int index = (int) (position >>> WORD_SHIFT);
+            int used = (int) (position & (Long.SIZE - 1));
+            long value = words[index] >>> used;
+            if (used + bits > Long.SIZE) {
+                value |= words[index + 1] << (Long.SIZE - used);
+            }
+            if (bits < Long.SIZE) {
+                value &= (1L << bits) - 1;
+            }
+            position += bits;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-point store keeping each sample as a short number of hundredths of
+ * a degree, which covers -327.68 to 327.67 degrees.
+ */
+final class CentiDegreeStorage implements TempStorage {
+    private static final double SCALE = 100.0;
+
+    private short[] data = new short[0];
+    private int size;
+    private long regrowths;
+    private long copiedBytes;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        return data[index] / SCALE;
+    }
+
+    @Override
+    public void append(double[] values, int from, int to) {
+        int length = to - from;
+        if (length > data.length - size) {
+            grow(TempStorage.grownCapacity(data.length, size + length));
+        }
+        for (int i = 0; i < length; i++) {
+            data[size + i] = encode(values[from + i]);
+        }
+        size += length;
+    }
+
+    private static short encode(double value) {
+        double scaled = Math.rint(value * SCALE);
+        if (!(scaled >= Short.MIN_VALUE && scaled <= Short.MAX_VALUE)) {
+            throw new IllegalArgumentException(
+                    "Temperature out of centi-degree range: " + value);
+        }
+        return (short) scaled;
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            grow(capacity);
+        }
+    }
+
+    @Override
+    public void trimToSize() {
+        if (data.length > size) {
+            data = Arrays.copyOf(data, size);
+        }
+    }
+
+    private void grow(int capacity) {
+        regrowths++;
+        copiedBytes += (long) size * Short.BYTES;
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    @Override
+    public long regrowths() {
+        return regrowths;
+    }
+
+    @Override
+    public long copiedBytes() {
+        return copiedBytes;
+    }
+
+    @Override
+    public void clear() {
+        data = new short[0];
+        size = 0;
+    }
+
+    /*
+     * A sorted copy would take eight bytes per sample, four times the
+     * samples themselves, so queries scan the array instead.
+     */
+    @Override
+    public boolean cachesSortedCopy() {
+        return false;
+    }
+
+    @Override
+    public void copyTo(int from, int to, double[] target, int offset) {
+        for (int i = from; i < to; i++) {
+            target[offset + i - from] = data[i] / SCALE;
+        }
+    }
+}
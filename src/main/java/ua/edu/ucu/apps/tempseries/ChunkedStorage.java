@@ -0,0 +1,129 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * Samples in a list of fixed-size chunks of CHUNK doubles. Growing
+ * allocates one more chunk and never copies stored samples; only the table
+ * of chunk references is reallocated, and it holds one reference per CHUNK
+ * samples. Chunks are as long as the blocks of TempAccumulator and, at
+ * 128 KiB, small enough to stay ordinary allocations rather than G1
+ * humongous objects.
+ */
+final class ChunkedStorage implements TempStorage {
+    static final int CHUNK = TempAccumulator.BLOCK;
+    static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK);
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final int INITIAL_CHUNKS = 4;
+
+    private double[][] chunks = new double[INITIAL_CHUNKS][];
+    private int allocated;
+    private int size;
+    private long regrowths;
+    private long copiedBytes;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    @Override
+    public void append(double[] values, int from, int to) {
+        if (to - from > MAX_ARRAY - size) {
+            throw new IllegalArgumentException("The series is too large!");
+        }
+        int offset = from;
+        while (offset < to) {
+            int chunk = size >>> CHUNK_SHIFT;
+            int start = size & CHUNK_MASK;
+            ensureChunk(chunk);
+            int length = Math.min(to - offset, CHUNK - start);
+            System.arraycopy(values, offset, chunks[chunk], start, length);
+            size += length;
+            offset += length;
+        }
+    }
+
+    @Override
+    public void clear() {
+        chunks = new double[INITIAL_CHUNKS][];
+        allocated = 0;
+        size = 0;
+    }
+
+    @Override
+    public void copyTo(int from, int to, double[] target, int offset) {
+        int position = from;
+        int destination = offset;
+        while (position < to) {
+            int start = position & CHUNK_MASK;
+            int length = Math.min(to - position, CHUNK - start);
+            System.arraycopy(chunks[position >>> CHUNK_SHIFT], start, target,
+                    destination, length);
+            position += length;
+            destination += length;
+        }
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > MAX_ARRAY) {
+            throw new IllegalArgumentException("The series is too large!");
+        }
+        int needed = (int) (((long) capacity + CHUNK - 1) >>> CHUNK_SHIFT);
+        if (needed > chunks.length) {
+            chunks = Arrays.copyOf(chunks, needed);
+        }
+        for (int chunk = 0; chunk < needed; chunk++) {
+            ensureChunk(chunk);
+        }
+    }
+
+    /*
+     * Drops the chunks past the last sample along with their slots in the
+     * table, and shortens the last chunk; an append into a shortened chunk
+     * first restores its full length.
+     */
+    @Override
+    public void trimToSize() {
+        int used = (size + CHUNK - 1) >>> CHUNK_SHIFT;
+        chunks = Arrays.copyOf(chunks, used);
+        allocated = used;
+        int last = size & CHUNK_MASK;
+        if (last != 0) {
+            chunks[used - 1] = Arrays.copyOf(chunks[used - 1], last);
+        }
+    }
+
+    @Override
+    public long regrowths() {
+        return regrowths;
+    }
+
+    @Override
+    public long copiedBytes() {
+        return copiedBytes;
+    }
+
+    private void ensureChunk(int chunk) {
+        if (chunk < allocated) {
+            if (chunks[chunk].length < CHUNK) {
+                regrowths++;
+                copiedBytes += (long) chunks[chunk].length * Double.BYTES;
+                chunks[chunk] = Arrays.copyOf(chunks[chunk], CHUNK);
+            }
+            return;
+        }
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks,
+                    Math.max(INITIAL_CHUNKS, 2 * chunks.length));
+        }
+        chunks[chunk] = new double[CHUNK];
+        allocated++;
+    }
+}
@@ -0,0 +1,148 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * Samples compressed by BlockCodec in blocks of BLOCK_SAMPLES. Every sealed
+ * block keeps a TempAccumulator header, so scans skip blocks outside their
+ * range and range statistics merge whole blocks without decoding them. The
+ * block being filled stays uncompressed. The last block decoded by get()
+ * is cached, which keeps sequential get() cheap. The cache is replaced
+ * rather than decoded into, so get() and copyTo() are both safe for
+ * several threads reading at once.
+ */
+final class CompressedStorage implements TempStorage {
+    static final int BLOCK_SHIFT = 10;
+    static final int BLOCK_SAMPLES = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SAMPLES - 1;
+    private static final int INITIAL_BLOCKS = 4;
+
+    private long[][] blocks = new long[INITIAL_BLOCKS][];
+    private TempAccumulator[] summaries = new TempAccumulator[INITIAL_BLOCKS];
+    private int sealed;
+    private final double[] open = new double[BLOCK_SAMPLES];
+    private DecodedBlock decoded;
+    private int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        int block = index >>> BLOCK_SHIFT;
+        if (block == sealed) {
+            return open[index & BLOCK_MASK];
+        }
+        DecodedBlock cached = decoded;
+        if (cached == null || cached.block != block) {
+            cached = new DecodedBlock(block, blocks[block]);
+            decoded = cached;
+        }
+        return cached.values[index & BLOCK_MASK];
+    }
+
+    @Override
+    public void append(double[] values, int from, int to) {
+        int offset = from;
+        while (offset < to) {
+            int start = size & BLOCK_MASK;
+            int length = Math.min(to - offset, BLOCK_SAMPLES - start);
+            System.arraycopy(values, offset, open, start, length);
+            size += length;
+            offset += length;
+            if (start + length == BLOCK_SAMPLES) {
+                seal();
+            }
+        }
+    }
+
+    private void seal() {
+        if (sealed == blocks.length) {
+            blocks = Arrays.copyOf(blocks, 2 * sealed);
+            summaries = Arrays.copyOf(summaries, 2 * sealed);
+        }
+        blocks[sealed] = BlockCodec.encode(open, BLOCK_SAMPLES);
+        TempAccumulator summary = new TempAccumulator();
+        summary.addAll(open, 0, BLOCK_SAMPLES);
+        summaries[sealed] = summary;
+        sealed++;
+    }
+
+    @Override
+    public void clear() {
+        blocks = new long[INITIAL_BLOCKS][];
+        summaries = new TempAccumulator[INITIAL_BLOCKS];
+        sealed = 0;
+        decoded = null;
+        size = 0;
+    }
+
+    @Override
+    public void copyTo(int from, int to, double[] target, int offset) {
+        int position = from;
+        while (position < to) {
+            int block = position >>> BLOCK_SHIFT;
+            int start = position & BLOCK_MASK;
+            int length = Math.min(to - position, BLOCK_SAMPLES - start);
+            int destination = offset + position - from;
+            if (block == sealed) {
+                System.arraycopy(open, start, target, destination, length);
+            } else if (start == 0) {
+                BlockCodec.decode(blocks[block], length, target,
+                        destination);
+            } else {
+                double[] prefix = new double[start + length];
+                BlockCodec.decode(blocks[block], prefix.length, prefix, 0);
+                System.arraycopy(prefix, start, target, destination,
+                        length);
+            }
+            position += length;
+        }
+    }
+
+    /*
+     * A sorted copy would take eight bytes per sample again, so queries
+     * scan the blocks instead of caching one.
+     */
+    @Override
+    public boolean cachesSortedCopy() {
+        return false;
+    }
+
+    @Override
+    public int summaryBlock() {
+        return BLOCK_SAMPLES;
+    }
+
+    @Override
+    public TempAccumulator blockSummary(int block) {
+        if (block < sealed) {
+            return summaries[block];
+        }
+        return null;
+    }
+
+    long encodedBytes() {
+        long bytes = (long) open.length * Double.BYTES;
+        for (int block = 0; block < sealed; block++) {
+            bytes += (long) blocks[block].length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /*
+     * Decoded in the constructor and only read afterwards; the final fields
+     * make a block published by one reader complete for every other one.
+     */
+    private static final class DecodedBlock {
+        private final int block;
+        private final double[] values = new double[BLOCK_SAMPLES];
+
+        DecodedBlock(int block, long[] encoded) {
+            this.block = block;
+            BlockCodec.decode(encoded, BLOCK_SAMPLES, values, 0);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Temperature series that many threads can append to at once. Appends go to
+ * one of several independently locked stripes, each with its own buffer and
+ * running statistics; a writer that finds its stripe busy moves on to the
+ * next free one instead of waiting. Reads lock every stripe only long
+ * enough to note where each one ends, so they see each addTemps call
+ * either completely or not at all without holding up writers while they
+ * copy.
+ *
+ * Samples from one addTemps call stay together and in order, but samples
+ * from different threads are not ordered relative to each other.
+ */
+public final class ConcurrentTemperatureSeries {
+    private final Stripe[] stripes;
+
+    public ConcurrentTemperatureSeries() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ConcurrentTemperatureSeries(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException(
+                    "Stripe count must be positive!");
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void addTemps(double... temps) {
+        addTemps(temps, 0, temps.length);
+    }
+
+    public void addTemps(double[] temps, int from, int to) {
+        Objects.checkFromToIndex(from, to, temps.length);
+        int home = (int) (Thread.currentThread().getId() % stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[(home + i) % stripes.length];
+            if (stripe.lock.tryLock()) {
+                try {
+                    stripe.append(temps, from, to);
+                } finally {
+                    stripe.lock.unlock();
+                }
+                return;
+            }
+        }
+        Stripe stripe = stripes[home];
+        stripe.lock.lock();
+        try {
+            stripe.append(temps, from, to);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Number of samples appended so far; under concurrent appends it may
+     * miss the most recent ones.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    public TempSummaryStatistics summaryStatistics() {
+        return summaryStatistics(new TempAccumulator()).toSummary();
+    }
+
+    public TempAccumulator summaryStatistics(TempAccumulator target) {
+        target.clear();
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) {
+                target.merge(stripe.stats);
+            }
+        } finally {
+            unlockAll();
+        }
+        if (target.getCount() == 0) {
+            throw new IllegalArgumentException("The set is empty!");
+        }
+        return target;
+    }
+
+    /*
+     * Stripes only ever grow, and a regrowth moves samples to a new array
+     * without touching the old one, so the first size samples of the array
+     * noted under the locks stay as they were and are copied after the
+     * locks are released. The snapshot takes over that copy as it is.
+     */
+    public TemperatureSeriesAnalysis snapshot() {
+        double[][] arrays = new double[stripes.length][];
+        int[] sizes = new int[stripes.length];
+        lockAll();
+        try {
+            for (int i = 0; i < stripes.length; i++) {
+                arrays[i] = stripes[i].temps.array();
+                sizes[i] = stripes[i].size;
+            }
+        } finally {
+            unlockAll();
+        }
+        long total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        if (total > TempStorage.MAX_ARRAY) {
+            throw new IllegalArgumentException("The series is too large!");
+        }
+        double[] copy = new double[(int) total];
+        int offset = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            System.arraycopy(arrays[i], 0, copy, offset, sizes[i]);
+            offset += sizes[i];
+        }
+        return TemperatureSeriesAnalysis.adopt(copy);
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final DoubleArrayStorage temps = new DoubleArrayStorage();
+        private final TempAccumulator stats = new TempAccumulator();
+        private volatile int size;
+
+        void append(double[] values, int from, int to) {
+            temps.append(values, from, to);
+            stats.addAll(values, from, to);
+            size = temps.size();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+final class DoubleArrayStorage implements TempStorage {
+    private double[] data = new double[0];
+    private int size;
+    private long regrowths;
+    private long copiedBytes;
+
+    DoubleArrayStorage() {
+    }
+
+    /*
+     * Takes over the first size elements of data without copying them.
+     */
+    DoubleArrayStorage(double[] data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        return data[index];
+    }
+
+    @Override
+    public void append(double[] values, int from, int to) {
+        int length = to - from;
+        if (length > data.length - size) {
+            grow(TempStorage.grownCapacity(data.length, size + length));
+        }
+        System.arraycopy(values, from, data, size, length);
+        size += length;
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            grow(capacity);
+        }
+    }
+
+    @Override
+    public void trimToSize() {
+        if (data.length > size) {
+            data = Arrays.copyOf(data, size);
+        }
+    }
+
+    private void grow(int capacity) {
+        regrowths++;
+        copiedBytes += (long) size * Double.BYTES;
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    @Override
+    public long regrowths() {
+        return regrowths;
+    }
+
+    @Override
+    public long copiedBytes() {
+        return copiedBytes;
+    }
+
+    @Override
+    public void clear() {
+        data = new double[0];
+        size = 0;
+    }
+
+    @Override
+    public void copyTo(int from, int to, double[] target, int offset) {
+        System.arraycopy(data, from, target, offset, to - from);
+    }
+
+    @Override
+    public double[] array() {
+        return data;
+    }
+}
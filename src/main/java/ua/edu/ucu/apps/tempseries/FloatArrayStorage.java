@@ -0,0 +1,98 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * Keeps each sample as a float, which holds about seven significant
+ * digits. Finite samples beyond the float range are rejected rather than
+ * stored as infinities.
+ */
+final class FloatArrayStorage implements TempStorage {
+    private float[] data = new float[0];
+    private int size;
+    private long regrowths;
+    private long copiedBytes;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        return data[index];
+    }
+
+    @Override
+    public void append(double[] values, int from, int to) {
+        int length = to - from;
+        if (length > data.length - size) {
+            grow(TempStorage.grownCapacity(data.length, size + length));
+        }
+        for (int i = 0; i < length; i++) {
+            data[size + i] = narrow(values[from + i]);
+        }
+        size += length;
+    }
+
+    private static float narrow(double value) {
+        float narrowed = (float) value;
+        if (Float.isInfinite(narrowed) && !Double.isInfinite(value)) {
+            throw new IllegalArgumentException(
+                    "Temperature out of float range: " + value);
+        }
+        return narrowed;
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            grow(capacity);
+        }
+    }
+
+    @Override
+    public void trimToSize() {
+        if (data.length > size) {
+            data = Arrays.copyOf(data, size);
+        }
+    }
+
+    private void grow(int capacity) {
+        regrowths++;
+        copiedBytes += (long) size * Float.BYTES;
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    @Override
+    public long regrowths() {
+        return regrowths;
+    }
+
+    @Override
+    public long copiedBytes() {
+        return copiedBytes;
+    }
+
+    @Override
+    public void clear() {
+        data = new float[0];
+        size = 0;
+    }
+
+    /*
+     * A sorted copy would take eight bytes per sample, twice the samples
+     * themselves, so queries scan the array instead.
+     */
+    @Override
+    public boolean cachesSortedCopy() {
+        return false;
+    }
+
+    @Override
+    public void copyTo(int from, int to, double[] target, int offset) {
+        for (int i = from; i < to; i++) {
+            target[offset + i - from] = data[i];
+        }
+    }
+}
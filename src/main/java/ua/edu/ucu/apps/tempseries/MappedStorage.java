@@ -0,0 +1,244 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Samples kept in a file of little-endian doubles mapped into memory in
+ * regions of up to 1 GiB. The file grows as samples are appended and is
+ * trimmed to the stored samples on close; trimToSize() gives the reserved
+ * room back while it stays open.
+ *
+ * While the storage is open, the file holds room reserved beyond the
+ * samples, followed by a trailer with the number of samples and a marker,
+ * which every append updates. A file left untrimmed by a crash is
+ * recognized by its trailer and cut back to the samples when reopened,
+ * instead of the reserved room being read as samples of 0.0.
+ */
+final class MappedStorage implements TempStorage {
+    private static final int REGION_SHIFT = 27;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int REGION_MASK = REGION_SIZE - 1;
+    private static final int MIN_REGION = 1 << 13;
+    private static final int TRAILER_BYTES = 2 * Long.BYTES;
+    private static final long TRAILER_MARK = 0x7FF8_5453_4552_4945L;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> mappings = new ArrayList<>();
+    private final List<DoubleBuffer> regions = new ArrayList<>();
+    private MappedByteBuffer trailer;
+    private long trailerAt;
+    private long capacity;
+    private int size;
+    private long regrowths;
+
+    MappedStorage(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long bytes = recoveredBytes(channel);
+        if (bytes % Double.BYTES != 0
+                || bytes / Double.BYTES > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IllegalArgumentException(
+                    "Not a series of doubles: " + file);
+        }
+        if (bytes < channel.size()) {
+            channel.truncate(bytes);
+        }
+        this.size = (int) (bytes / Double.BYTES);
+        reserve(size);
+    }
+
+    /*
+     * The bytes of samples in the file: all of it for a trimmed file, and
+     * the count in the trailer for one that was not closed.
+     */
+    private static long recoveredBytes(FileChannel channel)
+            throws IOException {
+        long bytes = channel.size();
+        if (bytes < TRAILER_BYTES || bytes % Double.BYTES != 0) {
+            return bytes;
+        }
+        ByteBuffer last = ByteBuffer.allocate(TRAILER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(last, bytes - TRAILER_BYTES);
+        long samples = last.getLong(0);
+        if (last.getLong(Long.BYTES) != TRAILER_MARK || samples < 0
+                || samples > (bytes - TRAILER_BYTES) / Double.BYTES) {
+            return bytes;
+        }
+        return samples * Double.BYTES;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        return regions.get(index >>> REGION_SHIFT).get(index & REGION_MASK);
+    }
+
+    @Override
+    public void append(double[] values, int from, int to) {
+        reserve((long) size + to - from);
+        int position = size;
+        int offset = from;
+        while (offset < to) {
+            DoubleBuffer region = regions.get(position >>> REGION_SHIFT);
+            int start = position & REGION_MASK;
+            int length = Math.min(to - offset, REGION_SIZE - start);
+            region.put(start, values, offset, length);
+            position += length;
+            offset += length;
+        }
+        size = position;
+        trailer.putLong(0, size);
+    }
+
+    @Override
+    public void clear() {
+        try {
+            mappings.clear();
+            regions.clear();
+            trailer = null;
+            capacity = 0;
+            size = 0;
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void copyTo(int from, int to, double[] target, int offset) {
+        int position = from;
+        int destination = offset;
+        while (position < to) {
+            DoubleBuffer region = regions.get(position >>> REGION_SHIFT);
+            int start = position & REGION_MASK;
+            int length = Math.min(to - position, REGION_SIZE - start);
+            region.get(start, target, destination, length);
+            position += length;
+            destination += length;
+        }
+    }
+
+    @Override
+    public boolean cachesSortedCopy() {
+        return false;
+    }
+
+    void force() {
+        for (MappedByteBuffer mapping : mappings) {
+            mapping.force();
+        }
+        if (trailer != null) {
+            trailer.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        mappings.clear();
+        regions.clear();
+        trailer = null;
+        channel.truncate((long) size * Double.BYTES);
+        channel.close();
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        reserve(capacity);
+    }
+
+    /*
+     * Drops the mappings, cuts the file back to the samples and maps
+     * exactly those again, with the trailer right behind them.
+     */
+    @Override
+    public void trimToSize() {
+        try {
+            mappings.clear();
+            regions.clear();
+            trailer = null;
+            capacity = 0;
+            channel.truncate((long) size * Double.BYTES);
+            for (int region = 0; capacity < size; region++) {
+                map(region, (int) Math.min(REGION_SIZE,
+                        size - (long) region * REGION_SIZE));
+            }
+            mapTrailer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Only the last region is ever remapped: it doubles until it reaches
+     * REGION_SIZE, after which a new region is started. The trailer moves
+     * to the end of the reserved room whenever that grows.
+     */
+    private void reserve(long required) {
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The series is too large!");
+        }
+        try {
+            while (capacity < required) {
+                int last = regions.size() - 1;
+                if (last >= 0 && regions.get(last).capacity() < REGION_SIZE) {
+                    long missing = required - (long) last * REGION_SIZE;
+                    int grown = (int) Math.min(REGION_SIZE, Math.max(missing,
+                            2L * regions.get(last).capacity()));
+                    mappings.remove(last);
+                    regions.remove(last);
+                    map(last, grown);
+                    regrowths++;
+                } else {
+                    long missing = required - capacity;
+                    map(last + 1, (int) Math.min(REGION_SIZE,
+                            Math.max(missing, MIN_REGION)));
+                }
+            }
+            if (trailer == null || capacity != trailerAt) {
+                mapTrailer();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long regrowths() {
+        return regrowths;
+    }
+
+    private void map(int region, int doubles) throws IOException {
+        MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE,
+                (long) region * REGION_SIZE * Double.BYTES,
+                (long) doubles * Double.BYTES);
+        mapping.order(ByteOrder.LITTLE_ENDIAN);
+        mappings.add(mapping);
+        regions.add(mapping.asDoubleBuffer());
+        capacity = (long) region * REGION_SIZE + doubles;
+    }
+
+    private void mapTrailer() throws IOException {
+        trailer = channel.map(FileChannel.MapMode.READ_WRITE,
+                capacity * Double.BYTES, TRAILER_BYTES);
+        trailer.order(ByteOrder.LITTLE_ENDIAN);
+        trailer.putLong(0, size).putLong(Long.BYTES, TRAILER_MARK);
+        trailerAt = capacity;
+    }
+}
@@ -0,0 +1,299 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The series of many sensors packed one after another into a single
+ * temperature column, with sensor s at positions offsets[s] (inclusive) to
+ * offsets[s + 1] (exclusive). Batch queries answer every sensor in one pass
+ * over the column and return one primitive result per sensor; once the
+ * column holds at least parallelThreshold samples the pass is split by
+ * sensor across the common ForkJoinPool.
+ */
+public final class MultiSensorSeries {
+    private static final int INITIAL_SENSORS = 16;
+
+    private final int parallelThreshold;
+    private double[] values;
+    private int[] offsets;
+    private int sensors;
+
+    public MultiSensorSeries() {
+        this(TemperatureSeriesAnalysis.SEQUENTIAL);
+    }
+
+    public MultiSensorSeries(int parallelThreshold) {
+        this(new double[0], new int[INITIAL_SENSORS + 1], 0,
+                parallelThreshold);
+    }
+
+    private MultiSensorSeries(double[] values, int[] offsets, int sensors,
+            int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException(
+                    "Parallel threshold must be positive!");
+        }
+        this.parallelThreshold = parallelThreshold;
+        this.values = values;
+        this.offsets = offsets;
+        this.sensors = sensors;
+    }
+
+    public static MultiSensorSeries of(double[]... series) {
+        MultiSensorSeries result = new MultiSensorSeries();
+        for (double[] temps : series) {
+            result.addSensor(temps);
+        }
+        return result;
+    }
+
+    /**
+     * Appends a sensor holding a copy of temps and returns its number.
+     */
+    public int addSensor(double... temps) {
+        return addSensor(temps, 0, temps.length);
+    }
+
+    public int addSensor(double[] temps, int from, int to) {
+        Objects.checkFromToIndex(from, to, temps.length);
+        int start = offsets[sensors];
+        int length = to - from;
+        if (start + length > values.length) {
+            values = Arrays.copyOf(values,
+                    Math.max(start + length, values.length * 2));
+        }
+        if (sensors + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        System.arraycopy(temps, from, values, start, length);
+        offsets[sensors + 1] = start + length;
+        return sensors++;
+    }
+
+    public int sensorCount() {
+        return sensors;
+    }
+
+    public int size(int sensor) {
+        Objects.checkIndex(sensor, sensors);
+        return offsets[sensor + 1] - offsets[sensor];
+    }
+
+    public int totalSize() {
+        return offsets[sensors];
+    }
+
+    /**
+     * Copies the temperatures of one sensor into a new
+     * TemperatureSeriesAnalysis.
+     */
+    public TemperatureSeriesAnalysis sensor(int sensor) {
+        Objects.checkIndex(sensor, sensors);
+        return new TemperatureSeriesAnalysis(Arrays.copyOfRange(values,
+                offsets[sensor], offsets[sensor + 1]));
+    }
+
+    public SensorStatistics summaryStatistics() {
+        long[] counts = new long[sensors];
+        double[] averages = new double[sensors];
+        double[] deviations = new double[sensors];
+        double[] mins = new double[sensors];
+        double[] maxes = new double[sensors];
+        forEachSensor((first, last) -> {
+            TempAccumulator stats = new TempAccumulator();
+            for (int s = first; s < last; s++) {
+                stats.clear();
+                accumulate(stats, offsets[s], offsets[s + 1]);
+                counts[s] = stats.getCount();
+                averages[s] = Double.NaN;
+                deviations[s] = Double.NaN;
+                mins[s] = Double.NaN;
+                maxes[s] = Double.NaN;
+                if (counts[s] > 0) {
+                    averages[s] = stats.getAvgTemp();
+                    deviations[s] = stats.getDevTemp();
+                    mins[s] = stats.getMinTemp();
+                    maxes[s] = stats.getMaxTemp();
+                }
+            }
+        });
+        return new SensorStatistics(counts, averages, deviations, mins,
+                maxes);
+    }
+
+    /*
+     * Sensors are usually too short for TempAccumulator.addAll to pick the
+     * block kernel, which pays off from a handful of samples onwards.
+     */
+    private void accumulate(TempAccumulator stats, int from, int to) {
+        if (from < to && to - from <= TempAccumulator.BLOCK) {
+            stats.addBlock(values, from, to);
+        } else {
+            stats.addAll(values, from, to);
+        }
+    }
+
+    /**
+     * The number of temperatures of each sensor between lowerBound and
+     * upperBound.
+     */
+    public int[] countInRange(double lowerBound, double upperBound) {
+        int[] counts = new int[sensors];
+        forEachSensor((first, last) -> {
+            for (int s = first; s < last; s++) {
+                counts[s] = TempKernels.INSTANCE.countInRange(values,
+                        offsets[s], offsets[s + 1], lowerBound, upperBound);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * The temperatures of each sensor between lowerBound and upperBound,
+     * in series order, packed into a series with the same sensors.
+     */
+    public MultiSensorSeries findTempsInRange(double lowerBound,
+            double upperBound) {
+        int[] counts = countInRange(lowerBound, upperBound);
+        int[] found = new int[sensors + 1];
+        for (int s = 0; s < sensors; s++) {
+            found[s + 1] = found[s] + counts[s];
+        }
+        double[] matches = new double[found[sensors]];
+        forEachSensor((first, last) -> {
+            for (int s = first; s < last; s++) {
+                TempKernels.INSTANCE.copyInRange(values, offsets[s],
+                        offsets[s + 1], lowerBound, upperBound, matches,
+                        found[s]);
+            }
+        });
+        return new MultiSensorSeries(matches, found, sensors,
+                parallelThreshold);
+    }
+
+    public double[] findTempsClosestToZero() {
+        return findTempsClosestToValue(0);
+    }
+
+    /**
+     * The temperature of each sensor closest to tempValue, NaN for sensors
+     * without samples. Ties are resolved as in TemperatureSeriesAnalysis.
+     */
+    public double[] findTempsClosestToValue(double tempValue) {
+        double[] closest = new double[sensors];
+        forEachSensor((first, last) -> {
+            for (int s = first; s < last; s++) {
+                closest[s] = closest(offsets[s], offsets[s + 1], tempValue);
+            }
+        });
+        return closest;
+    }
+
+    /**
+     * The temperature of sensor s closest to tempValues[s].
+     */
+    public double[] findTempsClosestToValues(double... tempValues) {
+        if (tempValues.length != sensors) {
+            throw new IllegalArgumentException(
+                    "Expected one value per sensor!");
+        }
+        double[] closest = new double[sensors];
+        forEachSensor((first, last) -> {
+            for (int s = first; s < last; s++) {
+                closest[s] = closest(offsets[s], offsets[s + 1],
+                        tempValues[s]);
+            }
+        });
+        return closest;
+    }
+
+    /*
+     * The vectorized kernel finds the smallest distance, so the scan can
+     * stop at the first sample that has it. Only a tie around zero has to
+     * look on for the positive value, and a NaN sample falls back to the
+     * plain scan that skips it.
+     */
+    private double closest(int from, int to, double target) {
+        double distance = TempKernels.INSTANCE.closestDistance(values, from,
+                to, target);
+        if (Double.isNaN(distance)) {
+            return scanClosest(from, to, target);
+        }
+        double best = Double.NaN;
+        for (int i = from; i < to; i++) {
+            if (Math.abs(target - values[i]) != distance) {
+                continue;
+            }
+            if (target != 0 || values[i] >= 0) {
+                return values[i];
+            }
+            best = values[i];
+        }
+        return best;
+    }
+
+    private double scanClosest(int from, int to, double target) {
+        double best = Double.NaN;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double distance = Math.abs(target - values[i]);
+            if (distance < bestDistance || distance == bestDistance
+                    && target == 0 && values[i] > best) {
+                best = values[i];
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private void forEachSensor(SensorAction action) {
+        if (totalSize() < parallelThreshold) {
+            action.apply(0, sensors);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(
+                new SensorTask(offsets, action, 0, sensors));
+    }
+
+    private interface SensorAction {
+        void apply(int first, int last);
+    }
+
+    /*
+     * Splits the sensors in halves until a part holds a single sensor or
+     * no more than a block of samples, so that a few large sensors do not
+     * end up in one task.
+     */
+    private static final class SensorTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] offsets;
+        private final transient SensorAction action;
+        private final int first;
+        private final int last;
+
+        SensorTask(int[] offsets, SensorAction action, int first,
+                int last) {
+            this.offsets = offsets;
+            this.action = action;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first <= 1
+                    || offsets[last] - offsets[first]
+                            <= TempAccumulator.BLOCK) {
+                action.apply(first, last);
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            invokeAll(new SensorTask(offsets, action, first, middle),
+                    new SensorTask(offsets, action, middle, last));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reduces a range of a series on the common ForkJoinPool. The range is cut
+ * into the same blocks TempAccumulator uses sequentially and the partial
+ * results are merged in block order, so the outcome does not depend on the
+ * number of threads.
+ */
+final class ParallelTempReducer {
+    private static final int BLOCKS_PER_TASK = 4;
+
+    private ParallelTempReducer() {
+    }
+
+    static void addAll(TempAccumulator target, TempStorage storage,
+            int from, int to) {
+        if (to - from <= TempAccumulator.BLOCK) {
+            target.addAll(storage, from, to);
+            return;
+        }
+        int blocks = (to - from + TempAccumulator.BLOCK - 1)
+                / TempAccumulator.BLOCK;
+        TempAccumulator[] partials = new TempAccumulator[blocks];
+        ForkJoinPool.commonPool().invoke(
+                new BlockTask(storage, from, to, partials, 0, blocks));
+        for (TempAccumulator partial : partials) {
+            target.merge(partial);
+        }
+    }
+
+    private static final class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient TempStorage storage;
+        private final int from;
+        private final int to;
+        private final transient TempAccumulator[] partials;
+        private final int firstBlock;
+        private final int lastBlock;
+
+        BlockTask(TempStorage storage, int from, int to,
+                TempAccumulator[] partials, int firstBlock, int lastBlock) {
+            this.storage = storage;
+            this.from = from;
+            this.to = to;
+            this.partials = partials;
+            this.firstBlock = firstBlock;
+            this.lastBlock = lastBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastBlock - firstBlock <= BLOCKS_PER_TASK) {
+                double[] buffer = new double[TempAccumulator.BLOCK];
+                for (int block = firstBlock; block < lastBlock; block++) {
+                    int start = from + block * TempAccumulator.BLOCK;
+                    TempAccumulator partial = new TempAccumulator();
+                    partial.addBlock(storage, start,
+                            Math.min(start + TempAccumulator.BLOCK, to),
+                            buffer);
+                    partials[block] = partial;
+                }
+                return;
+            }
+            int middle = (firstBlock + lastBlock) >>> 1;
+            invokeAll(
+                    new BlockTask(storage, from, to, partials,
+                            firstBlock, middle),
+                    new BlockTask(storage, from, to, partials,
+                            middle, lastBlock));
+        }
+    }
+}
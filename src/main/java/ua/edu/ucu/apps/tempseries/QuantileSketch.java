@@ -0,0 +1,304 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch: approximate percentiles of any number of samples in
+ * O(k) memory. Level h holds samples of weight 2^h; when a level fills up it
+ * is sorted and every other sample, starting at a random offset, moves up a
+ * level with doubled weight. Level capacities shrink by 2/3 from the top
+ * level down, so the rank error is about 1.7 / k of the count. Sketches of
+ * separate series can be merged.
+ */
+public final class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+
+    private static final byte FORMAT = 'K';
+    private static final int HEADER_BYTES = 1 + 2 * Integer.BYTES
+            + 2 * Long.BYTES + 2 * Double.BYTES;
+    private static final double DECAY = 2.0 / 3;
+    private static final int MIN_CAPACITY = 2;
+    private static final int MIN_K = 8;
+    private static final double HUNDRED = 100;
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final int XORSHIFT_A = 13;
+    private static final int XORSHIFT_B = 7;
+    private static final int XORSHIFT_C = 17;
+
+    private final int k;
+    private double[][] levels;
+    private int[] sizes;
+    private int[] capacities;
+    private int levelCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long random = SEED;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < MIN_K) {
+            throw new IllegalArgumentException(
+                    "Sketch size must be at least " + MIN_K + "!");
+        }
+        this.k = k;
+        clear();
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void add(double value) {
+        append(0, value);
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (sizes[0] >= capacities[0]) {
+            compress();
+        }
+    }
+
+    public void addAll(double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(values[i]);
+        }
+    }
+
+    /**
+     * Adds the samples summarized by other, as if they had been added to
+     * this sketch.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (other == this) {
+            merge(copy());
+            return;
+        }
+        for (int level = 0; level < other.levelCount; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+    }
+
+    public void clear() {
+        levels = new double[1][];
+        levels[0] = new double[MIN_CAPACITY];
+        sizes = new int[1];
+        capacities = new int[]{k};
+        levelCount = 1;
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Approximate percentile, with percentile between 0 and 100; 0 and 100
+     * return the exact min and max.
+     */
+    public double percentile(double percentile) {
+        TempSelection.checkPercentile(percentile);
+        if (count == 0) {
+            throw new IllegalArgumentException("The set is empty!");
+        }
+        if (percentile == 0) {
+            return min;
+        }
+        if (percentile == HUNDRED) {
+            return max;
+        }
+        double[][] sorted = new double[levelCount][];
+        int[] next = new int[levelCount];
+        for (int level = 0; level < levelCount; level++) {
+            sorted[level] = Arrays.copyOf(levels[level], sizes[level]);
+            Arrays.sort(sorted[level]);
+        }
+        double rank = percentile / HUNDRED * count;
+        long weight = 0;
+        while (true) {
+            int smallest = -1;
+            for (int level = 0; level < levelCount; level++) {
+                if (next[level] < sorted[level].length && (smallest < 0
+                        || sorted[level][next[level]]
+                                < sorted[smallest][next[smallest]])) {
+                    smallest = level;
+                }
+            }
+            if (smallest < 0) {
+                return max;
+            }
+            double value = sorted[smallest][next[smallest]++];
+            weight += 1L << smallest;
+            if (weight >= rank) {
+                return value;
+            }
+        }
+    }
+
+    public QuantileSketch copy() {
+        QuantileSketch result = new QuantileSketch(k);
+        result.levels = new double[levels.length][];
+        for (int level = 0; level < levelCount; level++) {
+            result.levels[level] = levels[level].clone();
+        }
+        result.sizes = sizes.clone();
+        result.capacities = capacities.clone();
+        result.levelCount = levelCount;
+        result.count = count;
+        result.min = min;
+        result.max = max;
+        result.random = random;
+        return result;
+    }
+
+    public int serializedSize() {
+        int bytes = HEADER_BYTES;
+        for (int level = 0; level < levelCount; level++) {
+            bytes += Integer.BYTES + sizes[level] * Double.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the sketch in serializedSize() bytes, little-endian whatever
+     * the order of target.
+     */
+    public void writeTo(ByteBuffer target) {
+        ByteOrder order = target.order();
+        target.order(ByteOrder.LITTLE_ENDIAN);
+        target.put(FORMAT).putInt(k).putLong(count).putDouble(min)
+                .putDouble(max).putLong(random).putInt(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+            target.putInt(sizes[level]);
+            for (int i = 0; i < sizes[level]; i++) {
+                target.putDouble(levels[level][i]);
+            }
+        }
+        target.order(order);
+    }
+
+    public static QuantileSketch readFrom(ByteBuffer source) {
+        ByteOrder order = source.order();
+        source.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (source.remaining() < HEADER_BYTES
+                    || source.get() != FORMAT) {
+                throw new IllegalArgumentException(
+                        "Not a serialized QuantileSketch!");
+            }
+            int k = source.getInt();
+            if (k < MIN_K) {
+                throw new IllegalArgumentException(
+                        "Not a serialized QuantileSketch!");
+            }
+            QuantileSketch result = new QuantileSketch(k);
+            result.count = source.getLong();
+            result.min = source.getDouble();
+            result.max = source.getDouble();
+            result.random = source.getLong();
+            int levelsInSource = source.getInt();
+            if (result.count < 0 || levelsInSource < 1
+                    || levelsInSource >= Long.SIZE) {
+                throw new IllegalArgumentException(
+                        "Not a serialized QuantileSketch!");
+            }
+            for (int level = 0; level < levelsInSource; level++) {
+                if (source.remaining() < Integer.BYTES) {
+                    throw new IllegalArgumentException(
+                            "Not a serialized QuantileSketch!");
+                }
+                int size = source.getInt();
+                if (size < 0 || size > source.remaining() / Double.BYTES) {
+                    throw new IllegalArgumentException(
+                            "Not a serialized QuantileSketch!");
+                }
+                for (int i = 0; i < size; i++) {
+                    result.append(level, source.getDouble());
+                }
+            }
+            return result;
+        } finally {
+            source.order(order);
+        }
+    }
+
+    /*
+     * Compacts every level that has reached its capacity, bottom up, so
+     * that the sketch never holds more than the sum of the capacities plus
+     * one sample per level.
+     */
+    private void compress() {
+        for (int level = 0; level < levelCount; level++) {
+            if (sizes[level] >= capacities[level]) {
+                compact(level);
+            }
+        }
+    }
+
+    private void compact(int level) {
+        if (level + 1 == levelCount) {
+            addLevel();
+        }
+        double[] buffer = levels[level];
+        int size = sizes[level];
+        Arrays.sort(buffer, 0, size);
+        int pairs = size / 2;
+        int offset = coinFlip();
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, buffer[2 * i + offset]);
+        }
+        if (size % 2 == 1) {
+            buffer[0] = buffer[size - 1];
+        }
+        sizes[level] = size % 2;
+    }
+
+    private void append(int level, double value) {
+        while (level >= levelCount) {
+            addLevel();
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level],
+                    Math.max(MIN_CAPACITY, 2 * sizes[level]));
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    private void addLevel() {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, 2 * levelCount);
+            sizes = Arrays.copyOf(sizes, 2 * levelCount);
+        }
+        levels[levelCount] = new double[MIN_CAPACITY];
+        levelCount++;
+        capacities = new int[levelCount];
+        for (int level = 0; level < levelCount; level++) {
+            int depth = levelCount - level - 1;
+            capacities[level] = Math.max(MIN_CAPACITY,
+                    (int) Math.ceil(k * Math.pow(DECAY, depth)));
+        }
+    }
+
+    private int coinFlip() {
+        random ^= random << XORSHIFT_A;
+        random ^= random >>> XORSHIFT_B;
+        random ^= random << XORSHIFT_C;
+        return (int) (random & 1);
+    }
+}
@@ -0,0 +1,138 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * Statistics over arbitrary index ranges of a series: prefix sums of the
+ * samples and of their squares give the average and deviation in O(1), and
+ * bottom-up segment trees give min and max in O(log n). Appending k samples
+ * costs O(k + log n) amortized.
+ */
+final class RangeAggregateIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double shift;
+    private double[] sums = new double[INITIAL_CAPACITY + 1];
+    private double[] squares = new double[INITIAL_CAPACITY + 1];
+    private double[] minTree = emptyTree(INITIAL_CAPACITY,
+            Double.POSITIVE_INFINITY);
+    private double[] maxTree = emptyTree(INITIAL_CAPACITY,
+            Double.NEGATIVE_INFINITY);
+    private int capacity = INITIAL_CAPACITY;
+    private int size;
+
+    /*
+     * Samples are summed relative to the first one, which keeps x and x^2
+     * small for temperatures and avoids most of the cancellation in
+     * sum(x^2) - sum(x)^2 / n.
+     */
+    void append(TempStorage storage, int from, int to) {
+        if (to == from) {
+            return;
+        }
+        if (size == 0) {
+            shift = storage.get(from);
+        }
+        if (size + to - from > capacity) {
+            grow(size + to - from);
+        }
+        double[] raw = storage.array();
+        for (int i = from; i < to; i++) {
+            double value;
+            if (raw != null) {
+                value = raw[i];
+            } else {
+                value = storage.get(i);
+            }
+            double shifted = value - shift;
+            sums[size + 1] = sums[size] + shifted;
+            squares[size + 1] = squares[size] + shifted * shifted;
+            minTree[capacity + size] = value;
+            maxTree[capacity + size] = value;
+            size++;
+        }
+        int low = (capacity + size - (to - from)) / 2;
+        int high = (capacity + size - 1) / 2;
+        while (low >= 1) {
+            for (int node = low; node <= high; node++) {
+                update(minTree, node, true);
+                update(maxTree, node, false);
+            }
+            low /= 2;
+            high /= 2;
+        }
+    }
+
+    void clear() {
+        size = 0;
+        Arrays.fill(minTree, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxTree, Double.NEGATIVE_INFINITY);
+    }
+
+    TempAccumulator summarize(int from, int to, TempAccumulator target) {
+        int n = to - from;
+        double sum = sums[to] - sums[from];
+        double sumSq = squares[to] - squares[from];
+        target.clear();
+        target.merge(n, shift + sum / n, Math.max(0, sumSq - sum * sum / n),
+                query(minTree, from, to, true),
+                query(maxTree, from, to, false));
+        return target;
+    }
+
+    private double query(double[] tree, int from, int to, boolean minimum) {
+        double result = tree[capacity + from];
+        int low = capacity + from;
+        int high = capacity + to;
+        while (low < high) {
+            if ((low & 1) == 1) {
+                result = pick(result, tree[low++], minimum);
+            }
+            if ((high & 1) == 1) {
+                result = pick(result, tree[--high], minimum);
+            }
+            low /= 2;
+            high /= 2;
+        }
+        return result;
+    }
+
+    private static double pick(double a, double b, boolean minimum) {
+        if (minimum) {
+            return Math.min(a, b);
+        }
+        return Math.max(a, b);
+    }
+
+    private void grow(int required) {
+        int grown = capacity;
+        while (grown < required) {
+            grown *= 2;
+        }
+        sums = Arrays.copyOf(sums, grown + 1);
+        squares = Arrays.copyOf(squares, grown + 1);
+        minTree = regrow(minTree, grown, Double.POSITIVE_INFINITY, true);
+        maxTree = regrow(maxTree, grown, Double.NEGATIVE_INFINITY, false);
+        capacity = grown;
+    }
+
+    private double[] regrow(double[] tree, int grown, double empty,
+            boolean minimum) {
+        double[] result = emptyTree(grown, empty);
+        System.arraycopy(tree, capacity, result, grown, size);
+        for (int node = grown - 1; node >= 1; node--) {
+            update(result, node, minimum);
+        }
+        return result;
+    }
+
+    private static void update(double[] tree, int node, boolean minimum) {
+        tree[node] = pick(tree[2 * node], tree[2 * node + 1], minimum);
+    }
+
+    private static double[] emptyTree(int leaves, double empty) {
+        double[] tree = new double[2 * leaves];
+        Arrays.fill(tree, empty);
+        return tree;
+    }
+}
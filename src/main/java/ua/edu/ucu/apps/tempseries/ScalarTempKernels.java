@@ -0,0 +1,100 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * Plain Java kernels. The block moments use four independent accumulators,
+ * so the loop has no division and no cross-iteration dependency and the
+ * JIT can unroll it.
+ */
+final class ScalarTempKernels implements TempKernels {
+    private static final int UNROLL = 4;
+
+    /*
+     * The literal offsets i + 1 to i + 3 are the four lanes of the unroll;
+     * naming them would only hide that.
+     */
+    @Override
+    @SuppressWarnings("checkstyle:magicnumber")
+    public void addBlock(TempAccumulator target, double[] values, int from,
+            int to) {
+        double shift = values[from];
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        double q0 = 0;
+        double q1 = 0;
+        double q2 = 0;
+        double q3 = 0;
+        double min0 = values[from];
+        double min1 = min0;
+        double max0 = min0;
+        double max1 = min0;
+        int i = from;
+        int end = to - (to - from) % UNROLL;
+        for (; i < end; i += UNROLL) {
+            double d0 = values[i] - shift;
+            double d1 = values[i + 1] - shift;
+            double d2 = values[i + 2] - shift;
+            double d3 = values[i + 3] - shift;
+            s0 += d0;
+            s1 += d1;
+            s2 += d2;
+            s3 += d3;
+            q0 += d0 * d0;
+            q1 += d1 * d1;
+            q2 += d2 * d2;
+            q3 += d3 * d3;
+            min0 = Math.min(min0, Math.min(values[i], values[i + 1]));
+            min1 = Math.min(min1, Math.min(values[i + 2], values[i + 3]));
+            max0 = Math.max(max0, Math.max(values[i], values[i + 1]));
+            max1 = Math.max(max1, Math.max(values[i + 2], values[i + 3]));
+        }
+        for (; i < to; i++) {
+            double d = values[i] - shift;
+            s0 += d;
+            q0 += d * d;
+            min0 = Math.min(min0, values[i]);
+            max0 = Math.max(max0, values[i]);
+        }
+        long n = to - from;
+        double sum = (s0 + s1) + (s2 + s3);
+        double sumSq = (q0 + q1) + (q2 + q3);
+        target.merge(n, shift + sum / n, Math.max(0, sumSq - sum * sum / n),
+                Math.min(min0, min1), Math.max(max0, max1));
+    }
+
+    @Override
+    public int countInRange(double[] values, int from, int to,
+            double lowerBound, double upperBound) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (values[i] >= lowerBound && values[i] <= upperBound) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int copyInRange(double[] values, int from, int to,
+            double lowerBound, double upperBound, double[] target,
+            int offset) {
+        int k = offset;
+        for (int i = from; i < to; i++) {
+            if (values[i] >= lowerBound && values[i] <= upperBound) {
+                target[k++] = values[i];
+            }
+        }
+        return k;
+    }
+
+    @Override
+    public double closestDistance(double[] values, int from, int to,
+            double target) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            best = Math.min(best, Math.abs(target - values[i]));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,59 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * Per-sensor statistics of a MultiSensorSeries as parallel primitive
+ * columns indexed by sensor. Sensors without samples have a count of 0 and
+ * NaN everywhere else. The arrays belong to this result and are returned
+ * without copying.
+ */
+public final class SensorStatistics {
+    private final long[] counts;
+    private final double[] avgTemps;
+    private final double[] devTemps;
+    private final double[] minTemps;
+    private final double[] maxTemps;
+
+    SensorStatistics(long[] counts, double[] avgTemps, double[] devTemps,
+            double[] minTemps, double[] maxTemps) {
+        this.counts = counts;
+        this.avgTemps = avgTemps;
+        this.devTemps = devTemps;
+        this.minTemps = minTemps;
+        this.maxTemps = maxTemps;
+    }
+
+    public int sensorCount() {
+        return counts.length;
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+
+    public double[] getAvgTemps() {
+        return avgTemps;
+    }
+
+    public double[] getDevTemps() {
+        return devTemps;
+    }
+
+    public double[] getMinTemps() {
+        return minTemps;
+    }
+
+    public double[] getMaxTemps() {
+        return maxTemps;
+    }
+
+    /**
+     * The statistics of one sensor; the set must not be empty.
+     */
+    public TempSummaryStatistics toSummary(int sensor) {
+        if (counts[sensor] == 0) {
+            throw new IllegalArgumentException("The set is empty!");
+        }
+        return new TempSummaryStatistics(avgTemps[sensor], devTemps[sensor],
+                minTemps[sensor], maxTemps[sensor]);
+    }
+}
@@ -0,0 +1,38 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * Mutable container behind the stream collectors: samples are appended to
+ * a series in fixed batches, so no array of the whole input is built.
+ */
+final class SeriesBuilder {
+    private static final int BATCH = 1 << 12;
+
+    private final TemperatureSeriesAnalysis series =
+            new TemperatureSeriesAnalysis();
+    private final double[] batch = new double[BATCH];
+    private int batched;
+
+    void add(double temp) {
+        batch[batched++] = temp;
+        if (batched == BATCH) {
+            flush();
+        }
+    }
+
+    SeriesBuilder combine(SeriesBuilder other) {
+        flush();
+        other.flush();
+        series.addTemps(other.series.getTsa());
+        return this;
+    }
+
+    TemperatureSeriesAnalysis build() {
+        flush();
+        return series;
+    }
+
+    private void flush() {
+        series.addTemps(batch, 0, batched);
+        batched = 0;
+    }
+}
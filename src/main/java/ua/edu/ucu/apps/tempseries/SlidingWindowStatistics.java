@@ -0,0 +1,272 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * Average, deviation, min and max over the most recent samples, either the
+ * last N of them or those whose timestamp lies within a span of the newest
+ * one. Samples live in a ring buffer; mean and M2 are updated and downdated
+ * in O(1), min and max come from monotonic deques, so every append and
+ * every query is amortized O(1).
+ */
+public final class SlidingWindowStatistics {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxCount;
+    private final long span;
+    private final boolean timed;
+    private final MonotonicDeque maxima = new MonotonicDeque();
+    private final MonotonicDeque negatedMinima = new MonotonicDeque();
+    private double[] values;
+    private long[] times;
+    private int head;
+    private int size;
+    private long appended;
+    private double mean;
+    private double m2;
+    private int removedSinceRecompute;
+
+    private SlidingWindowStatistics(int maxCount, long span, boolean timed,
+            int capacity) {
+        this.maxCount = maxCount;
+        this.span = span;
+        this.timed = timed;
+        this.values = new double[capacity];
+        if (timed) {
+            this.times = new long[capacity];
+        }
+    }
+
+    public static SlidingWindowStatistics ofCount(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException(
+                    "Window size must be positive!");
+        }
+        return new SlidingWindowStatistics(count, 0, false, count);
+    }
+
+    /**
+     * A window holding the samples whose timestamp t satisfies
+     * newest - span &lt; t &lt;= newest, in whatever unit the timestamps use.
+     */
+    public static SlidingWindowStatistics ofSpan(long span) {
+        if (span < 1) {
+            throw new IllegalArgumentException(
+                    "Window span must be positive!");
+        }
+        return new SlidingWindowStatistics(Integer.MAX_VALUE, span, true,
+                INITIAL_CAPACITY);
+    }
+
+    public void add(double temp) {
+        if (timed) {
+            throw new IllegalStateException(
+                    "A timed window needs a timestamp!");
+        }
+        if (size == maxCount) {
+            removeOldest();
+        }
+        insert(temp);
+    }
+
+    public void addTemps(double... temps) {
+        for (double temp : temps) {
+            add(temp);
+        }
+    }
+
+    public void add(long timestamp, double temp) {
+        if (!timed) {
+            throw new IllegalStateException(
+                    "A count window takes no timestamp!");
+        }
+        if (size > 0 && timestamp < times[index(size - 1)]) {
+            throw new IllegalArgumentException(
+                    "Timestamps must not go backwards!");
+        }
+        if (size == values.length) {
+            grow();
+        }
+        times[index(size)] = timestamp;
+        insert(temp);
+        dropBefore(timestamp);
+    }
+
+    /**
+     * Drops the samples that fall out of a timed window at the given time,
+     * for when no new sample has arrived.
+     */
+    public void advanceTo(long timestamp) {
+        if (!timed) {
+            throw new IllegalStateException(
+                    "A count window takes no timestamp!");
+        }
+        dropBefore(timestamp);
+    }
+
+    private void dropBefore(long timestamp) {
+        while (size > 0 && times[head] <= timestamp - span) {
+            removeOldest();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double average() {
+        checkForEmptiness();
+        return mean;
+    }
+
+    public double deviation() {
+        checkForEmptiness();
+        return Math.sqrt(Math.max(0, m2) / size);
+    }
+
+    public double min() {
+        checkForEmptiness();
+        return -negatedMinima.front();
+    }
+
+    public double max() {
+        checkForEmptiness();
+        return maxima.front();
+    }
+
+    public TempSummaryStatistics summaryStatistics() {
+        return new TempSummaryStatistics(average(), deviation(), min(),
+                max());
+    }
+
+    public TempAccumulator summaryStatistics(TempAccumulator target) {
+        checkForEmptiness();
+        target.clear();
+        target.merge(size, mean, Math.max(0, m2), min(), max());
+        return target;
+    }
+
+    private void checkForEmptiness() {
+        if (size == 0) {
+            throw new IllegalArgumentException("The set is empty!");
+        }
+    }
+
+    private int index(int offset) {
+        int index = head + offset;
+        if (index >= values.length) {
+            index -= values.length;
+        }
+        return index;
+    }
+
+    private void insert(double temp) {
+        values[index(size)] = temp;
+        size++;
+        double delta = temp - mean;
+        mean += delta / size;
+        m2 += delta * (temp - mean);
+        maxima.push(appended, temp);
+        negatedMinima.push(appended, -temp);
+        appended++;
+    }
+
+    private void removeOldest() {
+        double temp = values[head];
+        head = index(1);
+        size--;
+        maxima.evictBefore(appended - size);
+        negatedMinima.evictBefore(appended - size);
+        if (size == 0) {
+            mean = 0;
+            m2 = 0;
+            return;
+        }
+        double delta = temp - mean;
+        mean -= delta / size;
+        m2 -= delta * (temp - mean);
+        removedSinceRecompute++;
+        if (removedSinceRecompute >= values.length) {
+            recompute();
+        }
+    }
+
+    /*
+     * Downdating accumulates rounding error, so mean and M2 are rebuilt from
+     * the buffer once per buffer length of removals, which keeps the cost
+     * amortized O(1).
+     */
+    private void recompute() {
+        TempAccumulator exact = new TempAccumulator();
+        for (int i = 0; i < size; i++) {
+            exact.add(values[index(i)]);
+        }
+        mean = exact.getAvgTemp();
+        m2 = exact.getM2();
+        removedSinceRecompute = 0;
+    }
+
+    private void grow() {
+        double[] grownValues = new double[values.length * 2];
+        long[] grownTimes = new long[values.length * 2];
+        for (int i = 0; i < size; i++) {
+            grownValues[i] = values[index(i)];
+            grownTimes[i] = times[index(i)];
+        }
+        values = grownValues;
+        times = grownTimes;
+        head = 0;
+    }
+
+    /**
+     * Ring-buffered deque of (sequence, value) pairs with decreasing values,
+     * whose front is the maximum of the live samples.
+     */
+    private static final class MonotonicDeque {
+        private long[] sequences = new long[INITIAL_CAPACITY];
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int head;
+        private int size;
+
+        void push(long sequence, double value) {
+            while (size > 0 && values[index(size - 1)] <= value) {
+                size--;
+            }
+            if (size == values.length) {
+                grow();
+            }
+            sequences[index(size)] = sequence;
+            values[index(size)] = value;
+            size++;
+        }
+
+        void evictBefore(long sequence) {
+            while (size > 0 && sequences[head] < sequence) {
+                head = index(1);
+                size--;
+            }
+        }
+
+        double front() {
+            return values[head];
+        }
+
+        private int index(int offset) {
+            int index = head + offset;
+            if (index >= values.length) {
+                index -= values.length;
+            }
+            return index;
+        }
+
+        private void grow() {
+            long[] grownSequences = new long[sequences.length * 2];
+            double[] grownValues = new double[values.length * 2];
+            for (int i = 0; i < size; i++) {
+                grownSequences[i] = sequences[index(i)];
+                grownValues[i] = values[index(i)];
+            }
+            sequences = grownSequences;
+            values = grownValues;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Sorted copy of a series answering range and nearest-value queries with
+ * binary search. It is immutable and must be rebuilt after the series
+ * changes.
+ */
+final class SortedTempIndex {
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    private final TempStorage source;
+    private final double[] values;
+    private final int end;
+    private int[] order;
+
+    SortedTempIndex(TempStorage source) {
+        int size = source.size();
+        this.source = source;
+        this.values = new double[size];
+        source.copyTo(0, size, values, 0);
+        if (size >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(values);
+        } else {
+            Arrays.sort(values);
+        }
+        this.end = upperBound(Double.POSITIVE_INFINITY);
+    }
+
+    double[] values() {
+        return values;
+    }
+
+    double[] range(double lowerBound, double upperBound) {
+        int from = lowerBound(lowerBound);
+        int to = Math.max(from, upperBound(upperBound));
+        return Arrays.copyOfRange(values, from, to);
+    }
+
+    int range(double lowerBound, double upperBound, double[] target) {
+        int from = lowerBound(lowerBound);
+        int to = Math.max(from, upperBound(upperBound));
+        System.arraycopy(values, from, target, 0,
+                Math.min(to - from, target.length));
+        return to - from;
+    }
+
+    int range(double lowerBound, double upperBound, DoubleBuffer target) {
+        int from = lowerBound(lowerBound);
+        int to = Math.max(from, upperBound(upperBound));
+        target.put(values, from, Math.min(to - from, target.remaining()));
+        return to - from;
+    }
+
+    /*
+     * Ties are resolved the way the linear scans did: towards the positive
+     * value when looking for zero, otherwise towards the value that occurs
+     * first in the series.
+     */
+    double closest(double target) {
+        if (end == 0) {
+            return values[0];
+        }
+        int above = lowerBound(target);
+        if (above == 0) {
+            return values[0];
+        }
+        if (above == end) {
+            return values[end - 1];
+        }
+        double below = values[above - 1];
+        double belowDistance = target - below;
+        double aboveDistance = values[above] - target;
+        if (belowDistance < aboveDistance) {
+            return below;
+        }
+        if (belowDistance > aboveDistance || target == 0) {
+            return values[above];
+        }
+        if (firstPosition(above - 1) < firstPosition(above)) {
+            return below;
+        }
+        return values[above];
+    }
+
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(double value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstPosition(int sortedPosition) {
+        double value = values[sortedPosition];
+        int low = 0;
+        int high = sortedPosition;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(values[mid], value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return order()[low];
+    }
+
+    /*
+     * Original positions in sorted order, equal values keeping their
+     * series order. Only ties need it, so it is built on first use.
+     */
+    private int[] order() {
+        if (order == null) {
+            int n = values.length;
+            double[] series = source.array();
+            if (series == null) {
+                series = new double[n];
+                source.copyTo(0, n, series, 0);
+            }
+            int[] current = new int[n];
+            int[] merged = new int[n];
+            for (int i = 0; i < n; i++) {
+                current[i] = i;
+            }
+            for (int width = 1; width < n; width *= 2) {
+                for (int low = 0; low < n; low += 2 * width) {
+                    int mid = Math.min(low + width, n);
+                    int high = Math.min(low + 2 * width, n);
+                    merge(series, current, merged, low, mid, high);
+                }
+                int[] swap = current;
+                current = merged;
+                merged = swap;
+            }
+            order = current;
+        }
+        return order;
+    }
+
+    private static void merge(double[] series, int[] from, int[] to,
+            int low, int mid, int high) {
+        int left = low;
+        int right = mid;
+        for (int k = low; k < high; k++) {
+            if (right >= high || left < mid
+                    && Double.compare(series[from[left]],
+                            series[from[right]]) <= 0) {
+                to[k] = from[left++];
+            } else {
+                to[k] = from[right++];
+            }
+        }
+    }
+}
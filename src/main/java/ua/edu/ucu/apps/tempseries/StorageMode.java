@@ -0,0 +1,24 @@
+package ua.edu.ucu.apps.tempseries;
+
+public enum StorageMode {
+    DOUBLE,
+    FLOAT,
+    CENTI_DEGREES,
+    COMPRESSED,
+    CHUNKED;
+
+    TempStorage createStorage() {
+        switch (this) {
+            case FLOAT:
+                return new FloatArrayStorage();
+            case CENTI_DEGREES:
+                return new CentiDegreeStorage();
+            case COMPRESSED:
+                return new CompressedStorage();
+            case CHUNKED:
+                return new ChunkedStorage();
+            default:
+                return new DoubleArrayStorage();
+        }
+    }
+}
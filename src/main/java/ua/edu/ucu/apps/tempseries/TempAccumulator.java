@@ -0,0 +1,204 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Single-pass statistics over a series: count, mean, M2 (sum of squared
+ * deviations from the mean), min and max. Instances can be reused as the
+ * target of TemperatureSeriesAnalysis.summaryStatistics(TempAccumulator),
+ * combined across shards and serialized in SERIALIZED_BYTES bytes.
+ */
+public final class TempAccumulator {
+    public static final int SERIALIZED_BYTES =
+            1 + Long.BYTES + 4 * Double.BYTES;
+
+    static final int BLOCK = 1 << 14;
+    static final byte FORMAT = 'A';
+
+    private static final int LANES_THRESHOLD = 1024;
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    void addAll(double[] values, int from, int to) {
+        if (to - from < LANES_THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                add(values[i]);
+            }
+        } else {
+            for (int start = from; start < to; start += BLOCK) {
+                addBlock(values, start, Math.min(start + BLOCK, to));
+            }
+        }
+    }
+
+    void addAll(TempStorage storage, int from, int to) {
+        double[] raw = storage.array();
+        if (raw != null) {
+            addAll(raw, from, to);
+            return;
+        }
+        double[] buffer = new double[Math.min(BLOCK, to - from)];
+        if (to - from < LANES_THRESHOLD) {
+            storage.copyTo(from, to, buffer, 0);
+            addAll(buffer, 0, to - from);
+            return;
+        }
+        for (int start = from; start < to; start += BLOCK) {
+            addBlock(storage, start, Math.min(start + BLOCK, to), buffer);
+        }
+    }
+
+    void addBlock(TempStorage storage, int from, int to, double[] buffer) {
+        double[] raw = storage.array();
+        if (raw != null) {
+            addBlock(raw, from, to);
+        } else {
+            storage.copyTo(from, to, buffer, 0);
+            addBlock(buffer, 0, to - from);
+        }
+    }
+
+    /*
+     * Large inputs are cut into fixed BLOCK-sized blocks, each reduced by
+     * TempKernels over the data shifted by its first element. Block results
+     * are merged in order with Chan's formula; the parallel reducer computes
+     * the same blocks concurrently, which keeps both paths bit-for-bit
+     * equal as long as the storage's copyTo is safe for concurrent readers,
+     * as TempStorage requires.
+     */
+    void addBlock(double[] values, int from, int to) {
+        TempKernels.INSTANCE.addBlock(this, values, from, to);
+    }
+
+    void merge(long otherCount, double otherMean, double otherM2,
+            double otherMin, double otherMax) {
+        if (otherCount == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = otherCount;
+            mean = otherMean;
+            m2 = otherM2;
+            min = otherMin;
+            max = otherMax;
+            return;
+        }
+        long total = count + otherCount;
+        double delta = otherMean - mean;
+        mean += delta * otherCount / total;
+        m2 += otherM2 + delta * delta * count / total * otherCount;
+        count = total;
+        min = Math.min(min, otherMin);
+        max = Math.max(max, otherMax);
+    }
+
+    void merge(TempAccumulator other) {
+        merge(other.count, other.mean, other.m2, other.min, other.max);
+    }
+
+    /**
+     * Adds the samples summarized by other, as if they had been added to
+     * this accumulator. The operation is associative, so shards can be
+     * combined in any grouping.
+     */
+    public TempAccumulator combine(TempAccumulator other) {
+        merge(other);
+        return this;
+    }
+
+    /**
+     * Writes the state as a format byte followed by count, mean, M2, min
+     * and max in little-endian order, whatever the order of target.
+     */
+    public void writeTo(ByteBuffer target) {
+        ByteOrder order = target.order();
+        target.order(ByteOrder.LITTLE_ENDIAN);
+        target.put(FORMAT).putLong(count).putDouble(mean).putDouble(m2)
+                .putDouble(min).putDouble(max);
+        target.order(order);
+    }
+
+    public static TempAccumulator readFrom(ByteBuffer source) {
+        ByteOrder order = source.order();
+        source.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (source.remaining() < SERIALIZED_BYTES
+                    || source.get() != FORMAT) {
+                throw new IllegalArgumentException(
+                        "Not a serialized TempAccumulator!");
+            }
+            TempAccumulator result = new TempAccumulator();
+            result.count = source.getLong();
+            result.mean = source.getDouble();
+            result.m2 = source.getDouble();
+            result.min = source.getDouble();
+            result.max = source.getDouble();
+            if (result.count < 0 || result.m2 < 0
+                    || result.count > 0 && result.min > result.max) {
+                throw new IllegalArgumentException(
+                        "Not a serialized TempAccumulator!");
+            }
+            return result;
+        } finally {
+            source.order(order);
+        }
+    }
+
+    void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    void set(TempAccumulator other) {
+        count = other.count;
+        mean = other.mean;
+        m2 = other.m2;
+        min = other.min;
+        max = other.max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getM2() {
+        return m2;
+    }
+
+    public double getAvgTemp() {
+        return mean;
+    }
+
+    public double getDevTemp() {
+        return Math.sqrt(m2 / count);
+    }
+
+    public double getMinTemp() {
+        return min;
+    }
+
+    public double getMaxTemp() {
+        return max;
+    }
+
+    public TempSummaryStatistics toSummary() {
+        return new TempSummaryStatistics(mean, getDevTemp(), min, max);
+    }
+}
@@ -0,0 +1,88 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Partial aggregate of a shard: its TempAccumulator and, optionally, its
+ * quantile sketch. Aggregates combine associatively and serialize to a
+ * few dozen bytes plus the sketch, so shards can be reduced in parallel or
+ * tree-wise without shipping samples.
+ */
+public final class TempAggregate {
+    private static final byte WITH_SKETCH = 1;
+    private static final byte WITHOUT_SKETCH = 0;
+
+    private final TempAccumulator stats;
+    private QuantileSketch sketch;
+
+    public TempAggregate(TempAccumulator stats, QuantileSketch sketch) {
+        this.stats = stats;
+        this.sketch = sketch;
+    }
+
+    public TempAccumulator getStats() {
+        return stats;
+    }
+
+    /**
+     * The combined sketch, or null when any combined aggregate had none.
+     */
+    public QuantileSketch getSketch() {
+        return sketch;
+    }
+
+    public TempAggregate combine(TempAggregate other) {
+        stats.combine(other.stats);
+        if (sketch == null || other.sketch == null) {
+            sketch = null;
+        } else {
+            sketch.merge(other.sketch);
+        }
+        return this;
+    }
+
+    public int serializedSize() {
+        int bytes = TempAccumulator.SERIALIZED_BYTES + 1;
+        if (sketch != null) {
+            bytes += sketch.serializedSize();
+        }
+        return bytes;
+    }
+
+    public void writeTo(ByteBuffer target) {
+        stats.writeTo(target);
+        if (sketch == null) {
+            target.put(WITHOUT_SKETCH);
+        } else {
+            target.put(WITH_SKETCH);
+            sketch.writeTo(target);
+        }
+    }
+
+    public static TempAggregate readFrom(ByteBuffer source) {
+        TempAccumulator stats = TempAccumulator.readFrom(source);
+        if (!source.hasRemaining()) {
+            throw new IllegalArgumentException(
+                    "Not a serialized TempAggregate!");
+        }
+        byte flag = source.get();
+        if (flag == WITHOUT_SKETCH) {
+            return new TempAggregate(stats, null);
+        }
+        if (flag != WITH_SKETCH) {
+            throw new IllegalArgumentException(
+                    "Not a serialized TempAggregate!");
+        }
+        return new TempAggregate(stats, QuantileSketch.readFrom(source));
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(serializedSize());
+        writeTo(buffer);
+        return buffer.array();
+    }
+
+    public static TempAggregate fromBytes(byte[] bytes) {
+        return readFrom(ByteBuffer.wrap(bytes));
+    }
+}
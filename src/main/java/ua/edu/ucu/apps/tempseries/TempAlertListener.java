@@ -0,0 +1,20 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * Receives the samples that broke a TempAlertRule. Callbacks run on the
+ * thread calling addTemps, after the batch has been appended, so they
+ * should be cheap and must not call back into the series. A batch is
+ * checked rule by rule in the order the rules were added, and each rule
+ * reports its samples in series order.
+ */
+@FunctionalInterface
+public interface TempAlertListener {
+
+    /**
+     * Called for the sample at index of the series, whose value broke
+     * rule; measure is the figure the rule tested, as described by
+     * TempAlertRule.
+     */
+    void onAlert(TempAlertRule rule, int index, double value,
+            double measure);
+}
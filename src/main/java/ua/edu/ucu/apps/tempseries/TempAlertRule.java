@@ -0,0 +1,107 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * A condition checked by TemperatureSeriesAnalysis against every sample
+ * appended after the rule is registered with addAlertRule. Each sample
+ * that breaks the rule is reported to the TempAlertListener registered
+ * with it, together with the figure the rule tested.
+ *
+ * Threshold rules (above, below, outside) test the value itself and fire
+ * for values beyond their bounds, NaN included. Rate-of-change rules test
+ * the change from the previous sample and fire when it exceeds the
+ * allowed step in either direction; the change is taken between the values
+ * as appended, also across batches and for storages that round what they
+ * keep. Z-score rules test the distance from the mean in deviations, with
+ * mean and deviation taken over the samples appended before the batch.
+ * They only fire once there are at least two of those and they are not
+ * all equal, as a zero deviation gives no scale to measure the distance
+ * in.
+ *
+ * Rules hold no state of their own and may be shared between series.
+ */
+public final class TempAlertRule {
+
+    enum Kind {
+        OUTSIDE,
+        RATE_OF_CHANGE,
+        Z_SCORE
+    }
+
+    private final Kind kind;
+    private final double lowerBound;
+    private final double upperBound;
+    private final double limit;
+
+    private TempAlertRule(Kind kind, double lowerBound, double upperBound,
+            double limit) {
+        this.kind = kind;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.limit = limit;
+    }
+
+    /**
+     * Fires for samples greater than threshold.
+     */
+    public static TempAlertRule above(double threshold) {
+        return outside(Double.NEGATIVE_INFINITY, threshold);
+    }
+
+    /**
+     * Fires for samples less than threshold.
+     */
+    public static TempAlertRule below(double threshold) {
+        return outside(threshold, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Fires for samples less than lowerBound or greater than upperBound.
+     */
+    public static TempAlertRule outside(double lowerBound,
+            double upperBound) {
+        if (!(lowerBound <= upperBound)) {
+            throw new IllegalArgumentException(
+                    "Lower bound must not exceed upper bound!");
+        }
+        return new TempAlertRule(Kind.OUTSIDE, lowerBound, upperBound, 0);
+    }
+
+    /**
+     * Fires for samples differing from the previous one by more than
+     * maxStep.
+     */
+    public static TempAlertRule rateOfChange(double maxStep) {
+        if (!(maxStep >= 0)) {
+            throw new IllegalArgumentException(
+                    "Maximum step must not be negative!");
+        }
+        return new TempAlertRule(Kind.RATE_OF_CHANGE, 0, 0, maxStep);
+    }
+
+    /**
+     * Fires for samples more than limit deviations away from the mean.
+     */
+    public static TempAlertRule zScore(double limit) {
+        if (!(limit > 0)) {
+            throw new IllegalArgumentException(
+                    "Z-score limit must be positive!");
+        }
+        return new TempAlertRule(Kind.Z_SCORE, 0, 0, limit);
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    double lowerBound() {
+        return lowerBound;
+    }
+
+    double upperBound() {
+        return upperBound;
+    }
+
+    double limit() {
+        return limit;
+    }
+}
@@ -0,0 +1,137 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * The alert rules registered with a TemperatureSeriesAnalysis, checked
+ * against each appended batch only, so the cost of an append does not
+ * grow with the series. Threshold and z-score rules both come down to a
+ * range check, which runs through the range kernel first and is only
+ * rescanned sample by sample when something in the batch is out of range.
+ */
+final class TempAlerts {
+    private static final TempKernels KERNELS = TempKernels.INSTANCE;
+
+    private TempAlertRule[] rules = new TempAlertRule[2];
+    private TempAlertListener[] listeners = new TempAlertListener[2];
+    private int count;
+    private double previous = Double.NaN;
+    private int checkedSize;
+    private double mean;
+    private double deviation;
+    private boolean hasMoments;
+
+    void add(TempAlertRule rule, TempAlertListener listener) {
+        if (count == rules.length) {
+            rules = Arrays.copyOf(rules, 2 * count);
+            listeners = Arrays.copyOf(listeners, 2 * count);
+        }
+        rules[count] = rule;
+        listeners[count] = listener;
+        count++;
+    }
+
+    /*
+     * Returns whether any rule is left.
+     */
+    boolean remove(TempAlertRule rule) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (rules[i] != rule) {
+                rules[kept] = rules[i];
+                listeners[kept] = listeners[i];
+                kept++;
+            }
+        }
+        Arrays.fill(rules, kept, count, null);
+        Arrays.fill(listeners, kept, count, null);
+        count = kept;
+        return count > 0;
+    }
+
+    /*
+     * Remembers the moments of the series as they are before a batch is
+     * appended; check() compares the batch against them. The sample before
+     * the batch is the raw value check() last saw, since FLOAT and
+     * CENTI_DEGREES storages would give it back rounded; it is only read
+     * from the storage when the series changed since, on the first batch
+     * or after a reset.
+     */
+    void begin(TempStorage storage, TempAccumulator stats) {
+        int size = storage.size();
+        if (size != checkedSize) {
+            previous = Double.NaN;
+            if (size > 0) {
+                previous = storage.get(size - 1);
+            }
+        }
+        mean = stats.getAvgTemp();
+        deviation = stats.getDevTemp();
+        hasMoments = stats.getCount() >= 2 && deviation > 0;
+    }
+
+    /*
+     * Checks temps[from, to), which became the samples from start on.
+     */
+    void check(double[] temps, int from, int to, int start) {
+        for (int r = 0; r < count; r++) {
+            TempAlertRule rule = rules[r];
+            switch (rule.kind()) {
+                case OUTSIDE:
+                    checkRange(r, temps, from, to, start, rule.lowerBound(),
+                            rule.upperBound());
+                    break;
+                case RATE_OF_CHANGE:
+                    checkSteps(r, temps, from, to, start);
+                    break;
+                default:
+                    if (hasMoments) {
+                        double spread = rule.limit() * deviation;
+                        checkRange(r, temps, from, to, start, mean - spread,
+                                mean + spread);
+                    }
+                    break;
+            }
+        }
+        if (to > from) {
+            previous = temps[to - 1];
+            checkedSize = start + to - from;
+        }
+    }
+
+    private void checkRange(int r, double[] temps, int from, int to,
+            int start, double lowerBound, double upperBound) {
+        if (KERNELS.countInRange(temps, from, to, lowerBound, upperBound)
+                == to - from) {
+            return;
+        }
+        TempAlertRule rule = rules[r];
+        TempAlertListener listener = listeners[r];
+        boolean zScore = rule.kind() == TempAlertRule.Kind.Z_SCORE;
+        for (int i = from; i < to; i++) {
+            double value = temps[i];
+            if (value >= lowerBound && value <= upperBound) {
+                continue;
+            }
+            double measure = value;
+            if (zScore) {
+                measure = (value - mean) / deviation;
+            }
+            listener.onAlert(rule, start + i - from, value, measure);
+        }
+    }
+
+    private void checkSteps(int r, double[] temps, int from, int to,
+            int start) {
+        TempAlertRule rule = rules[r];
+        double maxStep = rule.limit();
+        double last = previous;
+        for (int i = from; i < to; i++) {
+            double step = temps[i] - last;
+            if (Math.abs(step) > maxStep) {
+                listeners[r].onAlert(rule, start + i - from, temps[i], step);
+            }
+            last = temps[i];
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * The inner loops of the scans: block moments for TempAccumulator, the
+ * range filter and the nearest-value distance. The Vector API version is
+ * used when the jdk.incubator.vector module is present at run time
+ * (--add-modules jdk.incubator.vector) unless the system property
+ * ua.edu.ucu.tempseries.kernels is set to "scalar"; otherwise the scalar
+ * loops are.
+ */
+interface TempKernels {
+    String PROPERTY = "ua.edu.ucu.tempseries.kernels";
+    TempKernels INSTANCE = select();
+
+    /**
+     * Merges count, mean, M2, min and max of values[from, to) into target,
+     * with the sums taken over the values shifted by values[from].
+     */
+    void addBlock(TempAccumulator target, double[] values, int from, int to);
+
+    int countInRange(double[] values, int from, int to, double lowerBound,
+            double upperBound);
+
+    /**
+     * Copies the values within the bounds, in order, to target starting at
+     * offset and returns the offset after the last one copied.
+     */
+    int copyInRange(double[] values, int from, int to, double lowerBound,
+            double upperBound, double[] target, int offset);
+
+    /**
+     * The smallest distance from a value to target, NaN if any value is
+     * NaN.
+     */
+    double closestDistance(double[] values, int from, int to, double target);
+
+    private static TempKernels select() {
+        if ("scalar".equals(System.getProperty(PROPERTY))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector")
+                        .isEmpty()) {
+            return new ScalarTempKernels();
+        }
+        try {
+            return (TempKernels) Class.forName(
+                    "ua.edu.ucu.apps.tempseries.VectorTempKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarTempKernels();
+        }
+    }
+}
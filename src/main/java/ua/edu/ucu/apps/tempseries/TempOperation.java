@@ -0,0 +1,28 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * The public operations of TemperatureSeriesAnalysis reported to a
+ * TempSeriesListener. Methods that delegate to another public method are
+ * reported once, under the operation they delegate to. INDEX covers
+ * building the quantile sketch and the range index, CAPACITY reserving
+ * and releasing room in the storage.
+ */
+public enum TempOperation {
+    ADD_TEMPS,
+    AVERAGE,
+    DEVIATION,
+    MIN,
+    MAX,
+    CLOSEST,
+    RANGE,
+    LESS_THAN,
+    GREATER_THAN,
+    SORT,
+    SUMMARY,
+    PERCENTILE,
+    AGGREGATE,
+    INDEX,
+    CAPACITY,
+    COPY,
+    RESET
+}
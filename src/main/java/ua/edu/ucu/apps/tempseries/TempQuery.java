@@ -0,0 +1,151 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * Lazy query over a series: position and value filters are only recorded,
+ * and the terminal operation runs them together with its aggregate in a
+ * single pass over the samples, block by block, without materializing the
+ * filtered samples. Filters narrow this query and return it.
+ */
+public final class TempQuery {
+    private final TempStorage storage;
+    private int from;
+    private int to;
+    private double lowerBound = Double.NEGATIVE_INFINITY;
+    private double upperBound = Double.POSITIVE_INFINITY;
+
+    TempQuery(TempStorage storage) {
+        this.storage = storage;
+        this.to = storage.size();
+    }
+
+    /**
+     * Keeps the samples at positions start (inclusive) to end (exclusive).
+     */
+    public TempQuery positions(int start, int end) {
+        Objects.checkFromToIndex(start, end, storage.size());
+        from = Math.max(from, start);
+        to = Math.max(from, Math.min(to, end));
+        return this;
+    }
+
+    public TempQuery inRange(double lower, double upper) {
+        lowerBound = Math.max(lowerBound, lower);
+        upperBound = Math.min(upperBound, upper);
+        return this;
+    }
+
+    public TempQuery atLeast(double tempValue) {
+        return inRange(tempValue, Double.POSITIVE_INFINITY);
+    }
+
+    public TempQuery atMost(double tempValue) {
+        return inRange(Double.NEGATIVE_INFINITY, tempValue);
+    }
+
+    public int count() {
+        int[] count = new int[1];
+        forEachBlock((values, start, end) -> count[0] += TempKernels.INSTANCE
+                .countInRange(values, start, end, lowerBound, upperBound));
+        return count[0];
+    }
+
+    public TempSummaryStatistics summaryStatistics() {
+        return summaryStatistics(new TempAccumulator()).toSummary();
+    }
+
+    /*
+     * Matches are gathered into a block-sized scratch buffer so that they
+     * are accumulated by the same unrolled kernel as whole series.
+     */
+    public TempAccumulator summaryStatistics(TempAccumulator target) {
+        target.clear();
+        double[] matches = new double[Math.min(TempAccumulator.BLOCK,
+                Math.max(1, to - from))];
+        forEachBlock((values, start, end) -> target.addAll(matches, 0,
+                TempKernels.INSTANCE.copyInRange(values, start, end,
+                        lowerBound, upperBound, matches, 0)));
+        if (target.getCount() == 0) {
+            throw new IllegalArgumentException("The set is empty!");
+        }
+        return target;
+    }
+
+    /**
+     * The matching samples in series order.
+     */
+    public double[] toArray() {
+        double[][] found = {new double[0]};
+        int[] count = new int[1];
+        forEachBlock((values, start, end) -> {
+            if (found[0].length - count[0] < end - start) {
+                found[0] = Arrays.copyOf(found[0], Math.max(
+                        count[0] + end - start, 2 * found[0].length));
+            }
+            count[0] = TempKernels.INSTANCE.copyInRange(values, start, end,
+                    lowerBound, upperBound, found[0], count[0]);
+        });
+        return Arrays.copyOf(found[0], count[0]);
+    }
+
+    /**
+     * The matching samples in series order; the stream reads the series
+     * lazily and must not outlive changes to it. Storages other than plain
+     * doubles are decoded a block at a time, so a parallel stream decodes
+     * each block once.
+     */
+    public DoubleStream stream() {
+        double[] raw = storage.array();
+        DoubleStream samples;
+        if (raw != null) {
+            samples = Arrays.stream(raw, from, to);
+        } else {
+            int first = from;
+            int last = to;
+            long length = (long) last - first;
+            int blocks = (int) ((length + TempAccumulator.BLOCK - 1)
+                    / TempAccumulator.BLOCK);
+            samples = IntStream.range(0, blocks)
+                    .mapToObj(block -> decode(
+                            first + block * TempAccumulator.BLOCK, last))
+                    .flatMapToDouble(Arrays::stream);
+        }
+        double lower = lowerBound;
+        double upper = upperBound;
+        return samples.filter(value -> value >= lower && value <= upper);
+    }
+
+    private double[] decode(int start, int last) {
+        double[] block = new double[Math.min(TempAccumulator.BLOCK,
+                last - start)];
+        storage.copyTo(start, start + block.length, block, 0);
+        return block;
+    }
+
+    private void forEachBlock(BlockConsumer consumer) {
+        double[] raw = storage.array();
+        if (raw != null) {
+            for (int start = from; start < to;
+                    start += TempAccumulator.BLOCK) {
+                consumer.accept(raw, start,
+                        Math.min(start + TempAccumulator.BLOCK, to));
+            }
+            return;
+        }
+        double[] buffer = new double[Math.min(TempAccumulator.BLOCK,
+                Math.max(1, to - from))];
+        for (int start = from; start < to; start += buffer.length) {
+            int end = Math.min(start + buffer.length, to);
+            storage.copyTo(start, end, buffer, 0);
+            consumer.accept(buffer, 0, end - start);
+        }
+    }
+
+    private interface BlockConsumer {
+        void accept(double[] values, int start, int end);
+    }
+}
@@ -0,0 +1,135 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * Linear scans used for storages that should not be copied onto the heap.
+ * They decode the series block by block and give the same answers as
+ * SortedTempIndex. Blocks whose stored summary rules them out are not
+ * decoded at all, and the nearest-value scan only walks the blocks whose
+ * vectorized minimum distance can still improve the answer.
+ */
+final class TempScans {
+    private TempScans() {
+    }
+
+    static double closest(TempStorage storage, double target) {
+        return closest(storage, new double[] {target})[0];
+    }
+
+    /*
+     * Answers every target in one pass, so each block is decoded at most
+     * once however many targets there are.
+     */
+    static double[] closest(TempStorage storage, double[] targets) {
+        int size = storage.size();
+        int block = blockLength(storage);
+        double[] buffer = new double[Math.min(block, size)];
+        double[] best = new double[targets.length];
+        double[] bestDistance = new double[targets.length];
+        Arrays.fill(best, storage.get(0));
+        Arrays.fill(bestDistance, Double.POSITIVE_INFINITY);
+        for (int start = 0; start < size; start += block) {
+            TempAccumulator summary = storage.blockSummary(start / block);
+            int length = Math.min(block, size - start);
+            boolean decoded = false;
+            for (int t = 0; t < targets.length; t++) {
+                double target = targets[t];
+                if (summary != null && Math.max(summary.getMinTemp() - target,
+                        target - summary.getMaxTemp()) > bestDistance[t]) {
+                    continue;
+                }
+                if (!decoded) {
+                    storage.copyTo(start, start + length, buffer, 0);
+                    decoded = true;
+                }
+                if (TempKernels.INSTANCE.closestDistance(buffer, 0, length,
+                        target) > bestDistance[t]) {
+                    continue;
+                }
+                for (int i = 0; i < length; i++) {
+                    double distance = Math.abs(target - buffer[i]);
+                    if (distance < bestDistance[t]
+                            || distance == bestDistance[t] && target == 0
+                            && buffer[i] > best[t]) {
+                        best[t] = buffer[i];
+                        bestDistance[t] = distance;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    static double[] range(TempStorage storage, double lowerBound,
+            double upperBound) {
+        int size = storage.size();
+        int block = blockLength(storage);
+        double[] buffer = new double[Math.min(block, size)];
+        int matches = 0;
+        for (int start = 0; start < size; start += block) {
+            TempAccumulator summary = storage.blockSummary(start / block);
+            if (summary != null && (summary.getMinTemp() > upperBound
+                    || summary.getMaxTemp() < lowerBound)) {
+                continue;
+            }
+            if (summary != null && summary.getMinTemp() >= lowerBound
+                    && summary.getMaxTemp() <= upperBound) {
+                matches += (int) summary.getCount();
+                continue;
+            }
+            int length = Math.min(block, size - start);
+            storage.copyTo(start, start + length, buffer, 0);
+            matches += TempKernels.INSTANCE.countInRange(buffer, 0, length,
+                    lowerBound, upperBound);
+        }
+        double[] result = new double[matches];
+        int k = 0;
+        for (int start = 0; start < size && k < matches; start += block) {
+            TempAccumulator summary = storage.blockSummary(start / block);
+            if (summary != null && (summary.getMinTemp() > upperBound
+                    || summary.getMaxTemp() < lowerBound)) {
+                continue;
+            }
+            int length = Math.min(block, size - start);
+            storage.copyTo(start, start + length, buffer, 0);
+            k = TempKernels.INSTANCE.copyInRange(buffer, 0, length,
+                    lowerBound, upperBound, result, k);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Statistics of [from, to), merging the stored summaries of the blocks
+     * that lie entirely inside it.
+     */
+    static TempAccumulator summarize(TempStorage storage, int from, int to,
+            TempAccumulator target) {
+        target.clear();
+        int block = storage.summaryBlock();
+        if (block == 0) {
+            target.addAll(storage, from, to);
+            return target;
+        }
+        int position = from;
+        while (position < to) {
+            int end = Math.min(to, (position / block + 1) * block);
+            TempAccumulator summary = storage.blockSummary(position / block);
+            if (summary != null && end - position == block) {
+                target.merge(summary);
+            } else {
+                target.addAll(storage, position, end);
+            }
+            position = end;
+        }
+        return target;
+    }
+
+    private static int blockLength(TempStorage storage) {
+        if (storage.summaryBlock() > 0) {
+            return storage.summaryBlock();
+        }
+        return TempAccumulator.BLOCK;
+    }
+}
@@ -0,0 +1,96 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * Exact percentiles by selection: a quickselect with three-way partitioning
+ * finds the order statistics in expected O(n) without sorting, and series
+ * of equal values do not degrade it.
+ */
+final class TempSelection {
+    private static final double HUNDRED = 100;
+
+    private TempSelection() {
+    }
+
+    static void checkPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= HUNDRED)) {
+            throw new IllegalArgumentException(
+                    "Percentile must be between 0 and 100!");
+        }
+    }
+
+    /*
+     * Percentiles interpolate linearly between the two closest ranks, with
+     * rank p / 100 * (n - 1) counted from zero.
+     */
+    static double percentileOfSorted(double[] sorted, int size,
+            double percentile) {
+        double rank = percentile / HUNDRED * (size - 1);
+        int below = (int) rank;
+        double fraction = rank - below;
+        if (fraction == 0) {
+            return sorted[below];
+        }
+        return sorted[below] + fraction * (sorted[below + 1] - sorted[below]);
+    }
+
+    /**
+     * Reorders values and returns the requested percentile of them.
+     */
+    static double percentile(double[] values, double percentile) {
+        double rank = percentile / HUNDRED * (values.length - 1);
+        int below = (int) rank;
+        double fraction = rank - below;
+        double lower = select(values, below);
+        if (fraction == 0) {
+            return lower;
+        }
+        double upper = values[below + 1];
+        for (int i = below + 2; i < values.length; i++) {
+            upper = Math.min(upper, values[i]);
+        }
+        return lower + fraction * (upper - lower);
+    }
+
+    /**
+     * Moves the k-th smallest value to position k, with no larger value
+     * before it and no smaller value after it, and returns it.
+     */
+    static double select(double[] values, int k) {
+        int low = 0;
+        int high = values.length - 1;
+        while (low < high) {
+            double pivot = medianOfThree(values[low],
+                    values[(low + high) >>> 1], values[high]);
+            int lt = low;
+            int gt = high;
+            int i = low;
+            while (i <= gt) {
+                if (values[i] < pivot) {
+                    swap(values, lt++, i++);
+                } else if (values[i] > pivot) {
+                    swap(values, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                high = lt - 1;
+            } else if (k > gt) {
+                low = gt + 1;
+            } else {
+                return pivot;
+            }
+        }
+        return values[k];
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
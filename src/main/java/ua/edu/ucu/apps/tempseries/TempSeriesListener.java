@@ -0,0 +1,26 @@
+package ua.edu.ucu.apps.tempseries;
+
+/**
+ * Receives the events of a TemperatureSeriesAnalysis it is attached to.
+ * Callbacks run on the calling thread inside the measured method, so they
+ * should be cheap and must not call back into the series.
+ */
+public interface TempSeriesListener {
+
+    default void onOperation(TempOperation operation, long nanos) {
+    }
+
+    /**
+     * Called after addTemps appended added samples, growing the series to
+     * size.
+     */
+    default void onAppend(int added, int size) {
+    }
+
+    /**
+     * Called when an append made the storage reallocate, with the number
+     * of reallocations and the bytes of samples they copied.
+     */
+    default void onRegrowth(long regrowths, long copiedBytes) {
+    }
+}
@@ -0,0 +1,184 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams temperatures from files into a TemperatureSeriesAnalysis through
+ * reusable buffers, appending them in large batches. If the input turns out
+ * to be malformed, the batches appended before the error stay in the
+ * series.
+ */
+public final class TempSeriesLoader {
+    private static final int READ_BUFFER = 1 << 16;
+    private static final int BATCH = 1 << 16;
+    private static final int MAX_TOKEN = 64;
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final int MAX_FAST_EXPONENT = 22;
+    private static final int RADIX = 10;
+    private static final double[] POWERS_OF_TEN =
+            new double[MAX_FAST_EXPONENT + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * RADIX;
+        }
+    }
+
+    private TempSeriesLoader() {
+    }
+
+    public static int loadCsv(Path file, TemperatureSeriesAnalysis target)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            return loadCsv(channel, target);
+        }
+    }
+
+    /**
+     * Reads numbers separated by commas, semicolons or whitespace.
+     * Returns the number of samples appended.
+     */
+    public static int loadCsv(ReadableByteChannel channel,
+            TemperatureSeriesAnalysis target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+        byte[] bytes = buffer.array();
+        byte[] token = new byte[MAX_TOKEN];
+        int tokenLength = 0;
+        double[] batch = new double[BATCH];
+        int batched = 0;
+        int loaded = 0;
+        while (channel.read(buffer) != -1) {
+            int limit = buffer.position();
+            for (int i = 0; i < limit; i++) {
+                byte b = bytes[i];
+                if (!isSeparator(b)) {
+                    if (tokenLength == MAX_TOKEN) {
+                        throw new IllegalArgumentException("Not a temperature: "
+                                + new String(token, StandardCharsets.US_ASCII));
+                    }
+                    token[tokenLength++] = b;
+                } else if (tokenLength > 0) {
+                    batch[batched++] = parse(token, tokenLength);
+                    tokenLength = 0;
+                    if (batched == BATCH) {
+                        target.addTemps(batch, 0, batched);
+                        loaded += batched;
+                        batched = 0;
+                    }
+                }
+            }
+            buffer.clear();
+        }
+        if (tokenLength > 0) {
+            batch[batched++] = parse(token, tokenLength);
+        }
+        if (batched > 0) {
+            target.addTemps(batch, 0, batched);
+        }
+        return loaded + batched;
+    }
+
+    public static int loadBinary(Path file, TemperatureSeriesAnalysis target)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            return loadBinary(channel, target);
+        }
+    }
+
+    /**
+     * Reads raw little-endian doubles. Returns the number of samples
+     * appended.
+     */
+    public static int loadBinary(ReadableByteChannel channel,
+            TemperatureSeriesAnalysis target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        double[] batch = new double[BATCH];
+        int loaded = 0;
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            int samples = buffer.remaining() / Double.BYTES;
+            buffer.asDoubleBuffer().get(batch, 0, samples);
+            buffer.position(samples * Double.BYTES);
+            buffer.compact();
+            if (samples > 0) {
+                target.addTemps(batch, 0, samples);
+                loaded += samples;
+            }
+        }
+        if (buffer.position() != 0) {
+            throw new IllegalArgumentException(
+                    "Trailing bytes after the last double!");
+        }
+        return loaded;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ',' || b == ';' || b == ' ' || b == '\t'
+                || b == '\n' || b == '\r';
+    }
+
+    /*
+     * Plain decimals with at most 15 significant digits and at most 22
+     * fractional digits are exact as mantissa / 10^fractionDigits; anything
+     * else, exponents and NaN included, goes through Double.parseDouble.
+     */
+    static double parse(byte[] token, int length) {
+        int i = 0;
+        boolean negative = token[0] == '-';
+        if (negative || token[0] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        int start = i;
+        for (; i < length; i++) {
+            byte b = token[i];
+            if (b == '.' && !fraction) {
+                fraction = true;
+                start++;
+                continue;
+            }
+            if (b < '0' || b > '9') {
+                break;
+            }
+            mantissa = mantissa * RADIX + (b - '0');
+            if (mantissa != 0) {
+                digits++;
+            }
+            if (fraction) {
+                exponent--;
+            }
+        }
+        if (i != length || i == start || digits > MAX_FAST_DIGITS
+                || -exponent > MAX_FAST_EXPONENT) {
+            return parseSlow(token, length);
+        }
+        double value = mantissa / POWERS_OF_TEN[-exponent];
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+    private static double parseSlow(byte[] token, int length) {
+        String text = new String(token, 0, length, StandardCharsets.US_ASCII);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a temperature: " + text, e);
+        }
+    }
+}
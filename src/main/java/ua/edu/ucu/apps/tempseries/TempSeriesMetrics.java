@@ -0,0 +1,195 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * TempSeriesListener counting calls, total time and a latency histogram
+ * per operation, plus appended samples, the largest series seen and
+ * storage regrowths. Everything is kept in LongAdders, so one instance can
+ * be shared by series used from many threads. Histogram buckets are powers
+ * of two nanoseconds, and percentiles report the upper bound of their
+ * bucket.
+ */
+public final class TempSeriesMetrics implements TempSeriesListener,
+        TempSeriesMetricsMXBean {
+    private static final int BUCKETS = 48;
+    private static final double HUNDRED = 100;
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+
+    private final LongAdder[] calls = adders(TempOperation.values().length);
+    private final LongAdder[] nanos = adders(TempOperation.values().length);
+    private final LongAdder[][] histograms =
+            new LongAdder[TempOperation.values().length][];
+    private final LongAdder appended = new LongAdder();
+    private final LongAccumulator largest = new LongAccumulator(Math::max, 0);
+    private final LongAdder regrowths = new LongAdder();
+    private final LongAdder copiedBytes = new LongAdder();
+
+    public TempSeriesMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = adders(BUCKETS);
+        }
+    }
+
+    @Override
+    public void onOperation(TempOperation operation, long elapsed) {
+        int index = operation.ordinal();
+        calls[index].increment();
+        nanos[index].add(elapsed);
+        int bucket = Long.SIZE - Long.numberOfLeadingZeros(elapsed);
+        histograms[index][Math.min(bucket, BUCKETS - 1)].increment();
+    }
+
+    @Override
+    public void onAppend(int added, int size) {
+        appended.add(added);
+        largest.accumulate(size);
+    }
+
+    @Override
+    public void onRegrowth(long count, long bytes) {
+        regrowths.add(count);
+        copiedBytes.add(bytes);
+    }
+
+    public long getCalls(TempOperation operation) {
+        return calls[operation.ordinal()].sum();
+    }
+
+    public long getTotalNanos(TempOperation operation) {
+        return nanos[operation.ordinal()].sum();
+    }
+
+    /**
+     * Upper bound of the histogram bucket holding the given latency
+     * percentile, 0 when the operation was never called.
+     */
+    public long getLatencyNanos(TempOperation operation, double percentile) {
+        TempSelection.checkPercentile(percentile);
+        LongAdder[] histogram = histograms[operation.ordinal()];
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = histogram[bucket].sum();
+            total += counts[bucket];
+        }
+        double rank = percentile / HUNDRED * total;
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (counts[bucket] > 0 && seen >= rank) {
+                return (1L << bucket) - 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public Map<String, Long> getCalls() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (TempOperation operation : TempOperation.values()) {
+            result.put(operation.name(), getCalls(operation));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getTotalNanos() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (TempOperation operation : TempOperation.values()) {
+            result.put(operation.name(), getTotalNanos(operation));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getP50Nanos() {
+        return latencies(P50);
+    }
+
+    @Override
+    public Map<String, Long> getP99Nanos() {
+        return latencies(P99);
+    }
+
+    @Override
+    public long getAppendedSamples() {
+        return appended.sum();
+    }
+
+    @Override
+    public long getLargestSeries() {
+        return largest.get();
+    }
+
+    @Override
+    public long getRegrowths() {
+        return regrowths.sum();
+    }
+
+    @Override
+    public long getCopiedBytes() {
+        return copiedBytes.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < calls.length; i++) {
+            calls[i].reset();
+            nanos[i].reset();
+            for (LongAdder bucket : histograms[i]) {
+                bucket.reset();
+            }
+        }
+        appended.reset();
+        largest.reset();
+        regrowths.reset();
+        copiedBytes.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as
+     * ua.edu.ucu.tempseries:type=TempSeriesMetrics,name=&lt;name&gt;.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = objectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                objectName);
+        return objectName;
+    }
+
+    public void unregister(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer()
+                .unregisterMBean(objectName(name));
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("ua.edu.ucu.tempseries:type=TempSeriesMetrics,"
+                + "name=" + ObjectName.quote(name));
+    }
+
+    private Map<String, Long> latencies(double percentile) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (TempOperation operation : TempOperation.values()) {
+            result.put(operation.name(),
+                    getLatencyNanos(operation, percentile));
+        }
+        return result;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] result = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new LongAdder();
+        }
+        return result;
+    }
+}
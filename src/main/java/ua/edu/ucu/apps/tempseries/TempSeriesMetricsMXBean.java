@@ -0,0 +1,27 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Map;
+
+/**
+ * JMX view of TempSeriesMetrics. Maps are keyed by TempOperation name.
+ */
+public interface TempSeriesMetricsMXBean {
+
+    Map<String, Long> getCalls();
+
+    Map<String, Long> getTotalNanos();
+
+    Map<String, Long> getP50Nanos();
+
+    Map<String, Long> getP99Nanos();
+
+    long getAppendedSamples();
+
+    long getLargestSeries();
+
+    long getRegrowths();
+
+    long getCopiedBytes();
+
+    void reset();
+}
@@ -0,0 +1,376 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * A TemperatureSeriesAnalysis kept durable in a directory. Appends are
+ * written to an append-only log before they reach the series, and the log
+ * is forced to disk once syncSamples samples are pending, on sync() and on
+ * close; a crash of the machine can lose the samples not forced yet.
+ *
+ * snapshot(), also taken whenever the log reaches snapshotSamples samples,
+ * saves the samples together with the aggregate of the series and starts
+ * an empty log. Opening the directory copies the samples out of the mapped
+ * snapshot, takes over its statistics and sketch without rescanning and
+ * replays only the log written since. A log record torn by a crash is cut
+ * off when the store is opened.
+ */
+public final class TempSeriesStore implements Closeable {
+    public static final int DEFAULT_SYNC_SAMPLES = 1 << 16;
+    public static final int DEFAULT_SNAPSHOT_SAMPLES = 1 << 24;
+
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final String LOG = "log.bin";
+    private static final String TEMPORARY = ".tmp";
+    private static final byte SNAPSHOT_FORMAT = 'S';
+    private static final byte LOG_FORMAT = 'L';
+    private static final int SNAPSHOT_HEADER = 2 * Long.BYTES;
+    private static final int LOG_HEADER = 1 + Long.BYTES;
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+    private static final int RECORD_SAMPLES = 1 << 16;
+    private static final int REGION_SAMPLES = 1 << 27;
+
+    private final Path directory;
+    private final TemperatureSeriesAnalysis series;
+    private final int syncSamples;
+    private final int snapshotSamples;
+    private final ByteBuffer record = ByteBuffer
+            .allocateDirect(RECORD_HEADER + RECORD_SAMPLES * Double.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 checksum = new CRC32();
+    private FileChannel log;
+    private long pendingSamples;
+    private long loggedSamples;
+
+    private TempSeriesStore(Path directory, TemperatureSeriesAnalysis series,
+            FileChannel log, long loggedSamples, int syncSamples,
+            int snapshotSamples) {
+        this.directory = directory;
+        this.series = series;
+        this.log = log;
+        this.loggedSamples = loggedSamples;
+        this.syncSamples = syncSamples;
+        this.snapshotSamples = snapshotSamples;
+    }
+
+    public static TempSeriesStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SYNC_SAMPLES,
+                DEFAULT_SNAPSHOT_SAMPLES);
+    }
+
+    /**
+     * Opens the store in directory, creating it if needed and restoring
+     * the series it holds.
+     */
+    public static TempSeriesStore open(Path directory, int syncSamples,
+            int snapshotSamples) throws IOException {
+        if (syncSamples < 1 || snapshotSamples < 1) {
+            throw new IllegalArgumentException(
+                    "Sync and snapshot intervals must be positive!");
+        }
+        Files.createDirectories(directory);
+        TemperatureSeriesAnalysis series;
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            series = readSnapshot(snapshot);
+        } else {
+            series = new TemperatureSeriesAnalysis();
+        }
+        FileChannel log = FileChannel.open(directory.resolve(LOG),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (log.size() < LOG_HEADER) {
+                /* Nothing is logged before the header is forced. */
+                log.truncate(0);
+                writeLogHeader(log, series.storage().size());
+            }
+            TempSeriesStore store = new TempSeriesStore(directory, series,
+                    log, 0, syncSamples, snapshotSamples);
+            store.replay();
+            return store;
+        } catch (IOException | IllegalArgumentException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The restored series. Appending to it directly bypasses the log, so
+     * appends should go through addTemps of this store.
+     */
+    public TemperatureSeriesAnalysis series() {
+        return series;
+    }
+
+    public int addTemps(double... temps) throws IOException {
+        return addTemps(temps, 0, temps.length);
+    }
+
+    public int addTemps(double[] temps, int from, int to)
+            throws IOException {
+        Objects.checkFromToIndex(from, to, temps.length);
+        for (int start = from; start < to; start += RECORD_SAMPLES) {
+            writeRecord(temps, start, Math.min(start + RECORD_SAMPLES, to));
+        }
+        int size = series.addTemps(temps, from, to);
+        pendingSamples += to - from;
+        loggedSamples += to - from;
+        if (loggedSamples >= snapshotSamples) {
+            snapshot();
+        } else if (pendingSamples >= syncSamples) {
+            sync();
+        }
+        return size;
+    }
+
+    /**
+     * Forces the logged samples to disk.
+     */
+    public void sync() throws IOException {
+        log.force(false);
+        pendingSamples = 0;
+    }
+
+    /**
+     * Saves the samples and the aggregate of the series and empties the
+     * log. Both files are replaced atomically, so a crash leaves either
+     * the old or the new version of each, and a log older than the
+     * snapshot is recognized by its base count and skipped as far as the
+     * snapshot covers it.
+     */
+    public void snapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT);
+        Path snapshotTemporary = directory.resolve(SNAPSHOT + TEMPORARY);
+        writeSnapshot(snapshotTemporary);
+        Files.move(snapshotTemporary, snapshot,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        Path logTemporary = directory.resolve(LOG + TEMPORARY);
+        try (FileChannel fresh = FileChannel.open(logTemporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeLogHeader(fresh, series.storage().size());
+        }
+        log.close();
+        Files.move(logTemporary, directory.resolve(LOG),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(directory);
+        log = FileChannel.open(directory.resolve(LOG),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log.position(log.size());
+        pendingSamples = 0;
+        loggedSamples = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            log.close();
+        }
+    }
+
+    /*
+     * A record is the sample count, the CRC32 of the samples and the
+     * samples as little-endian doubles.
+     */
+    private void writeRecord(double[] temps, int from, int to)
+            throws IOException {
+        int count = to - from;
+        record.clear().position(RECORD_HEADER);
+        record.asDoubleBuffer().put(temps, from, count);
+        record.limit(RECORD_HEADER + count * Double.BYTES);
+        checksum.reset();
+        checksum.update(record);
+        record.putInt(0, count).putInt(Integer.BYTES,
+                (int) checksum.getValue()).position(0);
+        while (record.hasRemaining()) {
+            log.write(record);
+        }
+    }
+
+    /*
+     * Appends the valid records to the series, skipping the samples the
+     * snapshot already holds, and truncates the log after the last one.
+     */
+    private void replay() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+        if (header.get(0) != LOG_FORMAT) {
+            throw new IOException("Not a series log!");
+        }
+        long skip = series.storage().size() - header.getLong(1);
+        if (skip < 0) {
+            throw new IOException("The log does not continue the snapshot!");
+        }
+        double[] temps = new double[RECORD_SAMPLES];
+        long position = LOG_HEADER;
+        while (readRecord(position)) {
+            int count = record.getInt(0);
+            record.position(RECORD_HEADER);
+            record.asDoubleBuffer().get(temps, 0, count);
+            int start = (int) Math.min(skip, count);
+            series.addTemps(temps, start, count);
+            skip -= start;
+            loggedSamples += count;
+            position += RECORD_HEADER + (long) count * Double.BYTES;
+        }
+        log.truncate(position);
+        log.position(position);
+    }
+
+    private boolean readRecord(long position) throws IOException {
+        record.clear().limit(RECORD_HEADER);
+        if (!readFully(record, position)) {
+            return false;
+        }
+        int count = record.getInt(0);
+        if (count <= 0 || count > RECORD_SAMPLES) {
+            return false;
+        }
+        record.limit(RECORD_HEADER + count * Double.BYTES);
+        if (!readFully(record, position + RECORD_HEADER)) {
+            return false;
+        }
+        checksum.reset();
+        checksum.update(record.position(RECORD_HEADER));
+        return (int) checksum.getValue() == record.getInt(Integer.BYTES);
+    }
+
+    private boolean readFully(ByteBuffer target, long position)
+            throws IOException {
+        long offset = position;
+        while (target.hasRemaining()) {
+            int read = log.read(target, offset);
+            if (read < 0) {
+                return false;
+            }
+            offset += read;
+        }
+        return true;
+    }
+
+    private static void writeLogHeader(FileChannel channel, int base)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER)
+                .order(ByteOrder.LITTLE_ENDIAN).put(LOG_FORMAT)
+                .putLong(base).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    /*
+     * The snapshot is a 16-byte header (format byte, padding, the size of
+     * the aggregate and the sample count), the serialized TempAggregate and
+     * then, from the next multiple of eight, the samples as little-endian
+     * doubles.
+     */
+    private void writeSnapshot(Path file) throws IOException {
+        TempAggregate aggregate = series.aggregate();
+        int size = series.storage().size();
+        int samplesStart = align(SNAPSHOT_HEADER + aggregate.serializedSize());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(samplesStart,
+                TempAccumulator.BLOCK * Double.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(SNAPSHOT_FORMAT).position(Integer.BYTES);
+        buffer.putInt(aggregate.serializedSize()).putLong(size);
+        aggregate.writeTo(buffer);
+        buffer.position(samplesStart).flip();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeFully(channel, buffer);
+            TempStorage storage = series.storage();
+            double[] chunk = new double[TempAccumulator.BLOCK];
+            for (int start = 0; start < size; start += chunk.length) {
+                int length = Math.min(chunk.length, size - start);
+                storage.copyTo(start, start + length, chunk, 0);
+                buffer.clear();
+                buffer.asDoubleBuffer().put(chunk, 0, length);
+                buffer.limit(length * Double.BYTES);
+                writeFully(channel, buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static TemperatureSeriesAnalysis readSnapshot(Path file)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode
+                    .READ_ONLY, 0, Math.min(channel.size(), SNAPSHOT_HEADER));
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.limit() < SNAPSHOT_HEADER
+                    || header.get(0) != SNAPSHOT_FORMAT) {
+                throw new IOException("Not a series snapshot!");
+            }
+            int aggregateBytes = header.getInt(Integer.BYTES);
+            long count = header.getLong(Long.BYTES);
+            long samplesStart = align(SNAPSHOT_HEADER + aggregateBytes);
+            if (aggregateBytes < 0 || count < 0 || count > Integer.MAX_VALUE
+                    || channel.size() != samplesStart + count * Double.BYTES) {
+                throw new IOException("Not a series snapshot!");
+            }
+            TempAggregate aggregate = TempAggregate.readFrom(channel.map(
+                    FileChannel.MapMode.READ_ONLY, SNAPSHOT_HEADER,
+                    aggregateBytes).order(ByteOrder.LITTLE_ENDIAN));
+            double[] samples = new double[(int) count];
+            for (int start = 0; start < samples.length;
+                    start += REGION_SAMPLES) {
+                int length = Math.min(REGION_SAMPLES, samples.length - start);
+                channel.map(FileChannel.MapMode.READ_ONLY,
+                        samplesStart + (long) start * Double.BYTES,
+                        (long) length * Double.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer()
+                        .get(samples, start, length);
+            }
+            return TemperatureSeriesAnalysis.restore(
+                    new DoubleArrayStorage(samples, samples.length),
+                    aggregate);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int align(int bytes) {
+        return (bytes + Double.BYTES - 1) & -Double.BYTES;
+    }
+
+    /*
+     * Makes the renames durable. Not every platform can force a
+     * directory; there the renames are still atomic, only not yet durable.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory,
+                StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            return;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.io.IOException;
+
+/**
+ * Append-only sample store behind TemperatureSeriesAnalysis.
+ */
+interface TempStorage {
+    int MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+    int size();
+
+    double get(int index);
+
+    void append(double[] values, int from, int to);
+
+    void clear();
+
+    /**
+     * Decodes the samples in [from, to) into target starting at offset.
+     * Must be safe to call from several threads at once while nothing is
+     * appended, as ParallelTempReducer does.
+     */
+    void copyTo(int from, int to, double[] target, int offset);
+
+    /**
+     * The backing array when samples are kept as plain doubles, so that
+     * kernels can read it without decoding; null for every other layout.
+     */
+    default double[] array() {
+        return null;
+    }
+
+    /**
+     * False when a sorted copy of the samples as doubles would undo the
+     * point of the layout: the samples live outside the Java heap, or take
+     * less than eight bytes each. Queries then scan the storage block by
+     * block instead of caching such a copy.
+     */
+    default boolean cachesSortedCopy() {
+        return true;
+    }
+
+    /**
+     * Length of the blocks described by blockSummary, 0 when the storage
+     * keeps no per-block summaries.
+     */
+    default int summaryBlock() {
+        return 0;
+    }
+
+    /**
+     * Statistics of the samples in the given block, or null when that
+     * block has none yet.
+     */
+    default TempAccumulator blockSummary(int block) {
+        return null;
+    }
+
+    /**
+     * How many times the storage has reallocated to grow since it was
+     * created, and how many bytes of samples it copied doing so.
+     */
+    default long regrowths() {
+        return 0;
+    }
+
+    default long copiedBytes() {
+        return 0;
+    }
+
+    /**
+     * Makes room for capacity samples in total, so that appends up to that
+     * size do not reallocate.
+     */
+    default void ensureCapacity(int capacity) {
+    }
+
+    /**
+     * Releases the room reserved beyond the stored samples.
+     */
+    default void trimToSize() {
+    }
+
+    /*
+     * Array storages grow by half their length rather than doubling: the
+     * amortized cost stays constant, and while a regrowth copies, old and
+     * new array together need 2.5 instead of 3 times the samples.
+     */
+    static int grownCapacity(int length, int required) {
+        if (required < 0 || required > MAX_ARRAY) {
+            throw new IllegalArgumentException("The series is too large!");
+        }
+        return (int) Math.min(MAX_ARRAY,
+                Math.max(required, length + (long) (length >> 1)));
+    }
+
+    default void close() throws IOException {
+    }
+}
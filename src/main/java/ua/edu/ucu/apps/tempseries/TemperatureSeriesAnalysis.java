@@ -1,188 +1,694 @@
 package ua.edu.ucu.apps.tempseries;
 
-public class TemperatureSeriesAnalysis {
-    private double[] tsa;
-    private int count;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+
+public class TemperatureSeriesAnalysis implements Closeable {
+    public static final int SEQUENTIAL = Integer.MAX_VALUE;
+
+    private final int parallelThreshold;
+    private final TempStorage tsa;
+    private TempAccumulator stats;
+    private SortedTempIndex sorted;
+    private RangeAggregateIndex ranges;
+    private QuantileSketch sketch;
+    private volatile TempSeriesListener listener;
+    private TempAlerts alerts;
 
     public TemperatureSeriesAnalysis() {
-        this.tsa = null;
-        this.count = 0;
+        this(null, StorageMode.DOUBLE, SEQUENTIAL);
     }
 
     public TemperatureSeriesAnalysis(double[] temperatureSeries) {
-        if (temperatureSeries == null || temperatureSeries.length == 0) {
-            this.tsa = new double[0];
-            this.count = 0;
-        } else {
-            this.tsa = temperatureSeries.clone();
-            this.count = tsa.length;
+        this(temperatureSeries, StorageMode.DOUBLE, SEQUENTIAL);
+    }
+
+    public TemperatureSeriesAnalysis(double[] temperatureSeries,
+            int parallelThreshold) {
+        this(temperatureSeries, StorageMode.DOUBLE, parallelThreshold);
+    }
+
+    public TemperatureSeriesAnalysis(double[] temperatureSeries,
+            StorageMode storageMode) {
+        this(temperatureSeries, storageMode, SEQUENTIAL);
+    }
+
+    public TemperatureSeriesAnalysis(double[] temperatureSeries,
+            StorageMode storageMode, int parallelThreshold) {
+        this(storageMode.createStorage(), temperatureSeries,
+                parallelThreshold);
+    }
+
+    private TemperatureSeriesAnalysis(TempStorage storage,
+            double[] temperatureSeries, int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException(
+                    "Parallel threshold must be positive!");
         }
+        this.parallelThreshold = parallelThreshold;
+        this.tsa = storage;
+        this.stats = new TempAccumulator();
+        if (temperatureSeries != null) {
+            tsa.append(temperatureSeries, 0, temperatureSeries.length);
+        }
+        accumulate(0, tsa.size());
+    }
+
+    private TemperatureSeriesAnalysis(TempStorage storage,
+            TempAccumulator stats, QuantileSketch sketch) {
+        this.parallelThreshold = SEQUENTIAL;
+        this.tsa = storage;
+        this.stats = stats;
+        this.sketch = sketch;
+    }
+
+    /*
+     * A series over samples whose statistics and sketch were saved along
+     * with them, taken over as they are instead of being recomputed.
+     */
+    static TemperatureSeriesAnalysis restore(TempStorage storage,
+            TempAggregate aggregate) {
+        if (aggregate.getStats().getCount() != storage.size()) {
+            throw new IllegalArgumentException(
+                    "The aggregate does not match the samples!");
+        }
+        return new TemperatureSeriesAnalysis(storage, aggregate.getStats(),
+                aggregate.getSketch());
+    }
+
+    /*
+     * A series over an array nothing else refers to, taken over without
+     * copying it.
+     */
+    static TemperatureSeriesAnalysis adopt(double[] samples) {
+        return new TemperatureSeriesAnalysis(
+                new DoubleArrayStorage(samples, samples.length), null,
+                SEQUENTIAL);
+    }
+
+    public static TemperatureSeriesAnalysis mapped(Path file)
+            throws IOException {
+        return mapped(file, SEQUENTIAL);
+    }
+
+    public static TemperatureSeriesAnalysis mapped(Path file,
+            int parallelThreshold) throws IOException {
+        return new TemperatureSeriesAnalysis(new MappedStorage(file), null,
+                parallelThreshold);
+    }
+
+    /**
+     * Collects a stream of temperatures into a series in fixed-size batches,
+     * without building an intermediate array of all of them.
+     */
+    public static TemperatureSeriesAnalysis of(DoubleStream temps) {
+        return temps.collect(SeriesBuilder::new, SeriesBuilder::add,
+                SeriesBuilder::combine).build();
+    }
+
+    public static Collector<Double, ?, TemperatureSeriesAnalysis>
+            collector() {
+        return Collector.of(SeriesBuilder::new, SeriesBuilder::add,
+                SeriesBuilder::combine, SeriesBuilder::build);
     }
 
     public void checkForEmptiness() {
-        if (tsa == null || tsa.length == 0) {
+        if (tsa.size() == 0) {
             throw new IllegalArgumentException("The set is empty!");
         }
     }
 
     public double average() {
-        checkForEmptiness();
-        int size = tsa.length;
-        double sum = 0; 
-        for (int i = 0; i < size; i++) {
-            sum += tsa[i];
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            return stats.getAvgTemp();
+        } finally {
+            stopTiming(TempOperation.AVERAGE, began);
         }
-        double result = sum / size;
-        return result;
     }
 
     public double deviation() {
-        checkForEmptiness();
-        double avrg = average();
-        int size = tsa.length;
-        double sum = 0;
-        for (int i = 0; i < size; i++) {
-            sum = sum + (tsa[i] - avrg)*(tsa[i] - avrg);
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            return stats.getDevTemp();
+        } finally {
+            stopTiming(TempOperation.DEVIATION, began);
         }
-        
-        return Math.sqrt(sum/size);
     }
 
     public double min() {
-        checkForEmptiness();
-        int size = tsa.length;
-        double res = Double.MAX_VALUE;
-        for (int i = 0; i < size; i++) {
-            if (tsa[i] < res) {
-                res = tsa[i];
-            }
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            return stats.getMinTemp();
+        } finally {
+            stopTiming(TempOperation.MIN, began);
         }
-        return res;
     }
 
     public double max() {
-        checkForEmptiness();
-        int size = tsa.length;
-        double res = Double.MIN_VALUE;
-        for (int i = 0; i < size; i++) {
-            if (tsa[i] > res) {
-                res = tsa[i];
-            }
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            return stats.getMaxTemp();
+        } finally {
+            stopTiming(TempOperation.MAX, began);
         }
-        return res;
     }
 
     public double findTempClosestToZero() {
-        checkForEmptiness();
-        int size = tsa.length;
-        double res = tsa[0];
-        for (int i = 0; i < size; i++) {
-            if ((Math.abs(tsa[i]) < Math.abs(res)) 
-            || (Math.abs(tsa[i]) == Math.abs(res) && tsa[i] > res)) {
-                res = tsa[i];
-            }
-        }
-
-        return res;
+        return findTempClosestToValue(0);
     }
 
     public double findTempClosestToValue(double tempValue) {
-        checkForEmptiness();
-        if (tempValue == 0) {
-            return findTempClosestToZero();
-        }
-        int size = tsa.length;
-        double res = Double.MAX_VALUE;
-        double element = 0;
-        for (int i = 0; i < size; i++) {
-            if (Math.abs(tempValue - tsa[i]) < res) {
-                res = Math.abs(tempValue - tsa[i]);
-                element = tsa[i];
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            if (!tsa.cachesSortedCopy()) {
+                return TempScans.closest(tsa, tempValue);
             }
+            return sortedIndex().closest(tempValue);
+        } finally {
+            stopTiming(TempOperation.CLOSEST, began);
         }
+    }
 
-        return element;
+    public double[] findTempsClosestToValues(double... tempValues) {
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            if (!tsa.cachesSortedCopy()) {
+                return TempScans.closest(tsa, tempValues);
+            }
+            SortedTempIndex index = sortedIndex();
+            double[] result = new double[tempValues.length];
+            for (int i = 0; i < tempValues.length; i++) {
+                result[i] = index.closest(tempValues[i]);
+            }
+            return result;
+        } finally {
+            stopTiming(TempOperation.CLOSEST, began);
+        }
     }
 
     public double[] findTempsLessThen(double tempValue) {
-        checkForEmptiness();
-        return findTempsInRange(-Double.MAX_VALUE, tempValue);
+        long began = startTiming();
+        try {
+            return range(-Double.MAX_VALUE, tempValue);
+        } finally {
+            stopTiming(TempOperation.LESS_THAN, began);
+        }
+    }
+
+    public int findTempsLessThen(double tempValue, double[] target) {
+        long began = startTiming();
+        try {
+            return range(-Double.MAX_VALUE, tempValue, target);
+        } finally {
+            stopTiming(TempOperation.LESS_THAN, began);
+        }
     }
 
     public double[] findTempsGreaterThen(double tempValue) {
-        checkForEmptiness();
-        return findTempsInRange(tempValue, Double.MAX_VALUE);
+        long began = startTiming();
+        try {
+            return range(tempValue, Double.MAX_VALUE);
+        } finally {
+            stopTiming(TempOperation.GREATER_THAN, began);
+        }
+    }
+
+    public int findTempsGreaterThen(double tempValue, double[] target) {
+        long began = startTiming();
+        try {
+            return range(tempValue, Double.MAX_VALUE, target);
+        } finally {
+            stopTiming(TempOperation.GREATER_THAN, began);
+        }
     }
 
     public double[] findTempsInRange(double lowerBound, double upperBound) {
-        checkForEmptiness();
-        int size = tsa.length;
-        int j = 0;
-        for (int i = 0; i < size; i++) {
-            if (tsa[i] >= lowerBound && tsa[i] <= upperBound) {
-                j++;
-            }
+        long began = startTiming();
+        try {
+            return range(lowerBound, upperBound);
+        } finally {
+            stopTiming(TempOperation.RANGE, began);
+        }
+    }
+
+    /**
+     * Writes the matching temperatures, in ascending order, into target and
+     * returns how many there are; only the first target.length of them are
+     * written when target is too short. Does not allocate once the sorted
+     * index is built, unless the storage keeps no sorted copy.
+     */
+    public int findTempsInRange(double lowerBound, double upperBound,
+            double[] target) {
+        long began = startTiming();
+        try {
+            return range(lowerBound, upperBound, target);
+        } finally {
+            stopTiming(TempOperation.RANGE, began);
         }
+    }
 
-        double[] arr = new double[j];
-        int k = 0;
-        for (int i = 0; i < size; i++) {
-            if (tsa[i] >= lowerBound && tsa[i] <= upperBound) {
-                arr[k] = tsa[i];
-                k++;
+    public int findTempsInRange(double lowerBound, double upperBound,
+            DoubleBuffer target) {
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            if (!tsa.cachesSortedCopy()) {
+                double[] found = TempScans.range(tsa, lowerBound, upperBound);
+                target.put(found, 0,
+                        Math.min(found.length, target.remaining()));
+                return found.length;
             }
+            return sortedIndex().range(lowerBound, upperBound, target);
+        } finally {
+            stopTiming(TempOperation.RANGE, began);
+        }
+    }
+
+    /*
+     * The untimed range queries behind the timed public ones, so that each
+     * call is reported once under its own operation.
+     */
+    private double[] range(double lowerBound, double upperBound) {
+        checkForEmptiness();
+        if (!tsa.cachesSortedCopy()) {
+            return TempScans.range(tsa, lowerBound, upperBound);
+        }
+        return sortedIndex().range(lowerBound, upperBound);
+    }
+
+    private int range(double lowerBound, double upperBound,
+            double[] target) {
+        checkForEmptiness();
+        if (!tsa.cachesSortedCopy()) {
+            double[] found = TempScans.range(tsa, lowerBound, upperBound);
+            System.arraycopy(found, 0, target, 0,
+                    Math.min(found.length, target.length));
+            return found.length;
         }
-        return arr;
+        return sortedIndex().range(lowerBound, upperBound, target);
     }
 
     public void reset() {
-        tsa = new double[0];
+        long began = startTiming();
+        try {
+            tsa.clear();
+            stats = new TempAccumulator();
+            sorted = null;
+            if (ranges != null) {
+                ranges.clear();
+            }
+            if (sketch != null) {
+                sketch.clear();
+            }
+        } finally {
+            stopTiming(TempOperation.RESET, began);
+        }
     }
 
     public double[] sortTemps() {
-        double[] sortedTsa = tsa.clone();
-        int n = sortedTsa.length;
-        for (int i = 1; i < n; ++i) { 
-            double key = sortedTsa[i]; 
-            int j = i - 1; 
+        long began = startTiming();
+        try {
+            return sortedIndex().values().clone();
+        } finally {
+            stopTiming(TempOperation.SORT, began);
+        }
+    }
+
+    public int sortTemps(double[] target) {
+        long began = startTiming();
+        try {
+            double[] values = sortedIndex().values();
+            System.arraycopy(values, 0, target, 0,
+                    Math.min(values.length, target.length));
+            return values.length;
+        } finally {
+            stopTiming(TempOperation.SORT, began);
+        }
+    }
+
+    /**
+     * Exact percentile, with percentile between 0 and 100, interpolating
+     * linearly between neighbouring ranks. Read from the sorted index when
+     * it is already built, otherwise found by selection in O(n).
+     */
+    public double percentile(double percentile) {
+        return percentiles(percentile)[0];
+    }
 
-            while (j >= 0 && sortedTsa[j] > key) { 
-                sortedTsa[j + 1] = sortedTsa[j]; 
-                j = j - 1; 
-            } 
-            sortedTsa[j + 1] = key; 
-        } 
-        return sortedTsa;
+    public double[] percentiles(double... percentiles) {
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            for (double percentile : percentiles) {
+                TempSelection.checkPercentile(percentile);
+            }
+            double[] result = new double[percentiles.length];
+            if (sorted != null) {
+                for (int i = 0; i < percentiles.length; i++) {
+                    result[i] = TempSelection.percentileOfSorted(
+                            sorted.values(), tsa.size(), percentiles[i]);
+                }
+                return result;
+            }
+            double[] values = copyAll();
+            for (int i = 0; i < percentiles.length; i++) {
+                result[i] = TempSelection.percentile(values, percentiles[i]);
+            }
+            return result;
+        } finally {
+            stopTiming(TempOperation.PERCENTILE, began);
+        }
+    }
+
+    public void enableQuantileSketch() {
+        enableQuantileSketch(QuantileSketch.DEFAULT_K);
+    }
+
+    /**
+     * Starts maintaining a KLL sketch of the series, updated by addTemps,
+     * for approximate percentiles in bounded memory.
+     */
+    public void enableQuantileSketch(int k) {
+        long began = startTiming();
+        try {
+            if (sketch != null && sketch.getK() == k) {
+                return;
+            }
+            sketch = new QuantileSketch(k);
+            addToSketch(0, tsa.size());
+        } finally {
+            stopTiming(TempOperation.INDEX, began);
+        }
+    }
+
+    private void addToSketch(int from, int to) {
+        double[] raw = tsa.array();
+        if (raw != null) {
+            sketch.addAll(raw, from, to);
+            return;
+        }
+        double[] buffer = new double[Math.min(TempAccumulator.BLOCK,
+                to - from)];
+        for (int start = from; start < to; start += buffer.length) {
+            int end = Math.min(start + buffer.length, to);
+            tsa.copyTo(start, end, buffer, 0);
+            sketch.addAll(buffer, 0, end - start);
+        }
+    }
+
+    /**
+     * The live sketch kept up to date by addTemps, e.g. for merging with
+     * sketches of other series.
+     */
+    public QuantileSketch quantileSketch() {
+        if (sketch == null) {
+            throw new IllegalStateException(
+                    "The quantile sketch is not enabled!");
+        }
+        return sketch;
+    }
+
+    public double approximatePercentile(double percentile) {
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            return quantileSketch().percentile(percentile);
+        } finally {
+            stopTiming(TempOperation.PERCENTILE, began);
+        }
+    }
+
+    private SortedTempIndex sortedIndex() {
+        if (sorted != null) {
+            return sorted;
+        }
+        SortedTempIndex index = new SortedTempIndex(tsa);
+        if (tsa.cachesSortedCopy()) {
+            sorted = index;
+        }
+        return index;
     }
 
     public TempSummaryStatistics summaryStatistics() {
-        double avg = average(); 
-        double dev = deviation(); 
-        double min = min(); 
-        double max = max(); 
-        return new TempSummaryStatistics(avg, dev, min, max);
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            return stats.toSummary();
+        } finally {
+            stopTiming(TempOperation.SUMMARY, began);
+        }
+    }
+
+    public TempAccumulator summaryStatistics(TempAccumulator target) {
+        long began = startTiming();
+        try {
+            checkForEmptiness();
+            target.set(stats);
+            return target;
+        } finally {
+            stopTiming(TempOperation.SUMMARY, began);
+        }
+    }
+
+    /**
+     * A mergeable copy of the running statistics, with a copy of the
+     * quantile sketch when it is enabled.
+     */
+    public TempAggregate aggregate() {
+        long began = startTiming();
+        try {
+            TempAccumulator copy = new TempAccumulator();
+            copy.set(stats);
+            if (sketch == null) {
+                return new TempAggregate(copy, null);
+            }
+            return new TempAggregate(copy, sketch.copy());
+        } finally {
+            stopTiming(TempOperation.AGGREGATE, began);
+        }
+    }
+
+    public TempSummaryStatistics summaryStatistics(int from, int to) {
+        return summaryStatistics(from, to, new TempAccumulator()).toSummary();
+    }
+
+    /**
+     * Statistics over the samples at positions from (inclusive) to to
+     * (exclusive). Answered from the range index when it is enabled,
+     * otherwise by a pass over the range without copying it.
+     */
+    public TempAccumulator summaryStatistics(int from, int to,
+            TempAccumulator target) {
+        long began = startTiming();
+        try {
+            Objects.checkFromToIndex(from, to, tsa.size());
+            if (from == to) {
+                throw new IllegalArgumentException("The set is empty!");
+            }
+            if (ranges != null) {
+                return ranges.summarize(from, to, target);
+            }
+            return TempScans.summarize(tsa, from, to, target);
+        } finally {
+            stopTiming(TempOperation.SUMMARY, began);
+        }
+    }
+
+    /**
+     * Builds an index answering summaryStatistics(from, to) in O(log n),
+     * kept up to date by addTemps. It keeps six doubles per slot of a
+     * power-of-two capacity, so between six and twelve doubles of memory
+     * per sample.
+     */
+    public void enableRangeIndex() {
+        long began = startTiming();
+        try {
+            if (ranges == null) {
+                ranges = new RangeAggregateIndex();
+                ranges.append(tsa, 0, tsa.size());
+            }
+        } finally {
+            stopTiming(TempOperation.INDEX, began);
+        }
+    }
+
+    /**
+     * Reserves room for capacity samples in total, so that appending up to
+     * that many does not reallocate the storage.
+     */
+    public void ensureCapacity(int capacity) {
+        long began = startTiming();
+        try {
+            tsa.ensureCapacity(capacity);
+        } finally {
+            stopTiming(TempOperation.CAPACITY, began);
+        }
+    }
+
+    /**
+     * Releases the room the storage reserved beyond the current samples.
+     */
+    public void trimToSize() {
+        long began = startTiming();
+        try {
+            tsa.trimToSize();
+        } finally {
+            stopTiming(TempOperation.CAPACITY, began);
+        }
     }
 
     public int addTemps(double... temps) {
-        if (count + temps.length > tsa.length) {
-            int newSize = Math.max(count + temps.length, tsa.length * 2);
-            double[] newTsa = new double[newSize];
+        return addTemps(temps, 0, temps.length);
+    }
 
-            for (int i = 0; i < count; i++) {
-                newTsa[i] = tsa[i];
+    public int addTemps(double[] temps, int from, int to) {
+        long began = startTiming();
+        try {
+            Objects.checkFromToIndex(from, to, temps.length);
+            int start = tsa.size();
+            long regrowths = tsa.regrowths();
+            long copiedBytes = tsa.copiedBytes();
+            if (alerts != null) {
+                alerts.begin(tsa, stats);
+            }
+            tsa.append(temps, from, to);
+            accumulate(start, tsa.size());
+            sorted = null;
+            if (ranges != null) {
+                ranges.append(tsa, start, tsa.size());
+            }
+            if (sketch != null) {
+                addToSketch(start, tsa.size());
+            }
+            if (listener != null) {
+                listener.onAppend(to - from, tsa.size());
+                if (tsa.regrowths() != regrowths) {
+                    listener.onRegrowth(tsa.regrowths() - regrowths,
+                            tsa.copiedBytes() - copiedBytes);
+                }
+            }
+            if (alerts != null) {
+                alerts.check(temps, from, to, start);
             }
-            tsa = newTsa;
+
+            return tsa.size();
+        } finally {
+            stopTiming(TempOperation.ADD_TEMPS, began);
+        }
+    }
+
+    /**
+     * Checks every batch appended from now on against rule and reports the
+     * samples breaking it to listener. Only the new samples are checked, so
+     * alerts cost the same however long the series is.
+     */
+    public void addAlertRule(TempAlertRule rule, TempAlertListener listener) {
+        Objects.requireNonNull(rule);
+        Objects.requireNonNull(listener);
+        if (alerts == null) {
+            alerts = new TempAlerts();
+        }
+        alerts.add(rule, listener);
+    }
+
+    /**
+     * Stops checking rule, under whichever listeners it was registered.
+     */
+    public void removeAlertRule(TempAlertRule rule) {
+        if (alerts != null && !alerts.remove(rule)) {
+            alerts = null;
+        }
+    }
+
+    /**
+     * Reports the operations, appends and storage regrowths of this series
+     * to listener, or stops reporting when listener is null. Without a
+     * listener the operations are not timed at all.
+     */
+    public void setListener(TempSeriesListener listener) {
+        this.listener = listener;
+    }
+
+    private long startTiming() {
+        if (listener == null) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    private void stopTiming(TempOperation operation, long began) {
+        TempSeriesListener current = listener;
+        if (current != null && began != 0) {
+            current.onOperation(operation, System.nanoTime() - began);
         }
+    }
 
-        for (double temp : temps) {
-            tsa[count] = temp;
-            count++;
+    private void accumulate(int from, int to) {
+        if (to - from >= parallelThreshold) {
+            ParallelTempReducer.addAll(stats, tsa, from, to);
+        } else {
+            stats.addAll(tsa, from, to);
         }
+    }
+
+    /**
+     * Starts a lazy query whose filters and aggregate run in one pass.
+     */
+    public TempQuery query() {
+        return new TempQuery(tsa);
+    }
 
-        return count;
+    /**
+     * The temperatures in series order, read lazily from the series.
+     */
+    public DoubleStream stream() {
+        return query().stream();
     }
 
     public double[] getTsa() {
-        return tsa.clone();
+        long began = startTiming();
+        try {
+            return copyAll();
+        } finally {
+            stopTiming(TempOperation.COPY, began);
+        }
+    }
+
+    TempStorage storage() {
+        return tsa;
+    }
+
+    private double[] copyAll() {
+        double[] copy = new double[tsa.size()];
+        tsa.copyTo(0, copy.length, copy, 0);
+        return copy;
+    }
+
+    public int getTsa(double[] target) {
+        long began = startTiming();
+        try {
+            int size = tsa.size();
+            tsa.copyTo(0, Math.min(size, target.length), target, 0);
+            return size;
+        } finally {
+            stopTiming(TempOperation.COPY, began);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        tsa.close();
     }
 }
@@ -0,0 +1,231 @@
+package ua.edu.ucu.apps.tempseries;
+
+import java.util.Arrays;
+
+/**
+ * Temperatures paired with non-decreasing timestamps, kept as primitive
+ * time and temperature columns in fixed-size chunks. Every chunk carries a
+ * TempAccumulator over its samples, so queries over a time interval read
+ * only the two partially covered chunks and answer or skip the others from
+ * their summaries. Time intervals include both ends.
+ */
+public final class TimestampedTemperatureSeries {
+    static final int CHUNK_SHIFT = 12;
+    static final int CHUNK = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final int INITIAL_CHUNKS = 4;
+
+    private long[][] times = new long[INITIAL_CHUNKS][];
+    private double[][] temps = new double[INITIAL_CHUNKS][];
+    private TempAccumulator[] summaries = new TempAccumulator[INITIAL_CHUNKS];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends one sample in place, without the batch path's arrays.
+     */
+    public void add(long timestamp, double temp) {
+        if (size > 0 && timestamp < timestamp(size - 1)) {
+            throw new IllegalArgumentException(
+                    "Timestamps must not go backwards!");
+        }
+        int chunk = size >>> CHUNK_SHIFT;
+        int start = size & CHUNK_MASK;
+        if (start == 0) {
+            startChunk(chunk);
+        }
+        times[chunk][start] = timestamp;
+        temps[chunk][start] = temp;
+        summaries[chunk].add(temp);
+        size++;
+    }
+
+    public int addTemps(long[] timestamps, double[] values) {
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException(
+                    "Timestamps and temperatures differ in length!");
+        }
+        long previous = Long.MIN_VALUE;
+        if (size > 0) {
+            previous = timestamp(size - 1);
+        }
+        for (long timestamp : timestamps) {
+            if (timestamp < previous) {
+                throw new IllegalArgumentException(
+                        "Timestamps must not go backwards!");
+            }
+            previous = timestamp;
+        }
+        int offset = 0;
+        while (offset < values.length) {
+            int chunk = size >>> CHUNK_SHIFT;
+            int start = size & CHUNK_MASK;
+            if (start == 0) {
+                startChunk(chunk);
+            }
+            int length = Math.min(values.length - offset, CHUNK - start);
+            System.arraycopy(timestamps, offset, times[chunk], start, length);
+            System.arraycopy(values, offset, temps[chunk], start, length);
+            summaries[chunk].addAll(temps[chunk], start, start + length);
+            size += length;
+            offset += length;
+        }
+        return size;
+    }
+
+    public double average(long from, long to) {
+        return summaryStatistics(from, to, new TempAccumulator())
+                .getAvgTemp();
+    }
+
+    public double deviation(long from, long to) {
+        return summaryStatistics(from, to, new TempAccumulator())
+                .getDevTemp();
+    }
+
+    public double min(long from, long to) {
+        return summaryStatistics(from, to, new TempAccumulator())
+                .getMinTemp();
+    }
+
+    public double max(long from, long to) {
+        return summaryStatistics(from, to, new TempAccumulator())
+                .getMaxTemp();
+    }
+
+    public TempSummaryStatistics summaryStatistics(long from, long to) {
+        return summaryStatistics(from, to, new TempAccumulator()).toSummary();
+    }
+
+    public TempAccumulator summaryStatistics(long from, long to,
+            TempAccumulator target) {
+        target.clear();
+        int first = firstAtOrAfter(from);
+        int last = firstAfter(to);
+        int position = first;
+        while (position < last) {
+            int chunk = position >>> CHUNK_SHIFT;
+            int start = position & CHUNK_MASK;
+            int end = Math.min(CHUNK, last - (chunk << CHUNK_SHIFT));
+            if (start == 0 && end == chunkLength(chunk)) {
+                target.merge(summaries[chunk]);
+            } else {
+                target.addAll(temps[chunk], start, end);
+            }
+            position += end - start;
+        }
+        if (target.getCount() == 0) {
+            throw new IllegalArgumentException("The set is empty!");
+        }
+        return target;
+    }
+
+    /**
+     * Temperatures between lowerBound and upperBound recorded between from
+     * and to, in time order. Chunks whose summary lies outside the value
+     * range are skipped and chunks entirely inside it are copied whole.
+     */
+    public double[] findTempsInRange(long from, long to, double lowerBound,
+            double upperBound) {
+        double[] found = new double[0];
+        int count = 0;
+        int first = firstAtOrAfter(from);
+        int last = firstAfter(to);
+        int position = first;
+        while (position < last) {
+            int chunk = position >>> CHUNK_SHIFT;
+            int start = position & CHUNK_MASK;
+            int end = Math.min(CHUNK, last - (chunk << CHUNK_SHIFT));
+            position += end - start;
+            TempAccumulator summary = summaries[chunk];
+            if (summary.getMinTemp() > upperBound
+                    || summary.getMaxTemp() < lowerBound) {
+                continue;
+            }
+            if (found.length - count < end - start) {
+                found = Arrays.copyOf(found,
+                        Math.max(count + end - start, 2 * found.length));
+            }
+            double[] values = temps[chunk];
+            if (summary.getMinTemp() >= lowerBound
+                    && summary.getMaxTemp() <= upperBound) {
+                System.arraycopy(values, start, found, count, end - start);
+                count += end - start;
+                continue;
+            }
+            count = TempKernels.INSTANCE.copyInRange(values, start, end,
+                    lowerBound, upperBound, found, count);
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Copies the temperatures recorded between from and to into a new
+     * TemperatureSeriesAnalysis.
+     */
+    public TemperatureSeriesAnalysis slice(long from, long to) {
+        int first = firstAtOrAfter(from);
+        int last = Math.max(first, firstAfter(to));
+        double[] values = new double[last - first];
+        int position = first;
+        while (position < last) {
+            int chunk = position >>> CHUNK_SHIFT;
+            int start = position & CHUNK_MASK;
+            int end = Math.min(CHUNK, last - (chunk << CHUNK_SHIFT));
+            System.arraycopy(temps[chunk], start, values, position - first,
+                    end - start);
+            position += end - start;
+        }
+        return new TemperatureSeriesAnalysis(values);
+    }
+
+    private long timestamp(int index) {
+        return times[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    private int chunkLength(int chunk) {
+        return Math.min(CHUNK, size - (chunk << CHUNK_SHIFT));
+    }
+
+    private int firstAtOrAfter(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamp(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstAfter(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamp(mid) <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void startChunk(int chunk) {
+        if (chunk == temps.length) {
+            times = Arrays.copyOf(times, 2 * chunk);
+            temps = Arrays.copyOf(temps, 2 * chunk);
+            summaries = Arrays.copyOf(summaries, 2 * chunk);
+        }
+        times[chunk] = new long[CHUNK];
+        temps[chunk] = new double[CHUNK];
+        summaries[chunk] = new TempAccumulator();
+    }
+}
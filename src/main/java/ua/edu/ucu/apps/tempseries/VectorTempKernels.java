@@ -0,0 +1,118 @@
+package ua.edu.ucu.apps.tempseries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on jdk.incubator.vector using the widest vectors of the host:
+ * lane-wise accumulators with horizontal reductions for the moments, and
+ * masked compares for the range filter. Only loaded by TempKernels when the
+ * module is available.
+ */
+final class VectorTempKernels implements TempKernels {
+    private static final VectorSpecies<Double> SPECIES =
+            DoubleVector.SPECIES_PREFERRED;
+
+    private final ScalarTempKernels tails = new ScalarTempKernels();
+
+    @Override
+    public void addBlock(TempAccumulator target, double[] values, int from,
+            int to) {
+        double first = values[from];
+        DoubleVector shift = DoubleVector.broadcast(SPECIES, first);
+        DoubleVector sums = DoubleVector.zero(SPECIES);
+        DoubleVector squares = DoubleVector.zero(SPECIES);
+        DoubleVector mins = shift;
+        DoubleVector maxes = shift;
+        int i = from;
+        int end = from + SPECIES.loopBound(to - from);
+        for (; i < end; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            DoubleVector d = v.sub(shift);
+            sums = sums.add(d);
+            squares = squares.add(d.mul(d));
+            mins = mins.min(v);
+            maxes = maxes.max(v);
+        }
+        double sum = sums.reduceLanes(VectorOperators.ADD);
+        double sumSq = squares.reduceLanes(VectorOperators.ADD);
+        double min = mins.reduceLanes(VectorOperators.MIN);
+        double max = maxes.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            double d = values[i] - first;
+            sum += d;
+            sumSq += d * d;
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        long n = to - from;
+        target.merge(n, first + sum / n, Math.max(0, sumSq - sum * sum / n),
+                min, max);
+    }
+
+    @Override
+    public int countInRange(double[] values, int from, int to,
+            double lowerBound, double upperBound) {
+        int count = 0;
+        int i = from;
+        int end = from + SPECIES.loopBound(to - from);
+        for (; i < end; i += SPECIES.length()) {
+            count += inRange(values, i, lowerBound, upperBound).trueCount();
+        }
+        return count + tails.countInRange(values, i, to, lowerBound,
+                upperBound);
+    }
+
+    /*
+     * Java 17 has no compress(), so partially matching vectors are written
+     * lane by lane from the mask bits; all-true vectors are stored whole.
+     */
+    @Override
+    public int copyInRange(double[] values, int from, int to,
+            double lowerBound, double upperBound, double[] target,
+            int offset) {
+        int k = offset;
+        int i = from;
+        int end = from + SPECIES.loopBound(to - from);
+        for (; i < end; i += SPECIES.length()) {
+            VectorMask<Double> mask = inRange(values, i, lowerBound,
+                    upperBound);
+            if (mask.allTrue()) {
+                DoubleVector.fromArray(SPECIES, values, i)
+                        .intoArray(target, k);
+                k += SPECIES.length();
+                continue;
+            }
+            for (long bits = mask.toLong(); bits != 0; bits &= bits - 1) {
+                target[k++] = values[i + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return tails.copyInRange(values, i, to, lowerBound, upperBound,
+                target, k);
+    }
+
+    @Override
+    public double closestDistance(double[] values, int from, int to,
+            double target) {
+        DoubleVector targets = DoubleVector.broadcast(SPECIES, target);
+        DoubleVector best = DoubleVector.broadcast(SPECIES,
+                Double.POSITIVE_INFINITY);
+        int i = from;
+        int end = from + SPECIES.loopBound(to - from);
+        for (; i < end; i += SPECIES.length()) {
+            best = best.min(DoubleVector.fromArray(SPECIES, values, i)
+                    .sub(targets).abs());
+        }
+        return Math.min(best.reduceLanes(VectorOperators.MIN),
+                tails.closestDistance(values, i, to, target));
+    }
+
+    private static VectorMask<Double> inRange(double[] values, int i,
+            double lowerBound, double upperBound) {
+        DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+        return v.compare(VectorOperators.GE, lowerBound)
+                .and(v.compare(VectorOperators.LE, upperBound));
+    }
+}
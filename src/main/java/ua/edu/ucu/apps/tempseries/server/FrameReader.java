@@ -0,0 +1,79 @@
+package ua.edu.ucu.apps.tempseries.server;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Cuts the bytes of a channel into frames. Each read takes as many bytes as
+ * the channel has, so pipelined frames are usually already buffered and
+ * hasFrame() tells whether the next one can be taken without blocking.
+ */
+final class FrameReader {
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+
+    FrameReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(TempProtocol.INITIAL_BUFFER)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+    }
+
+    /**
+     * The next frame without its length, or null once the channel is at
+     * its end. The frame shares this reader's buffer and is only valid
+     * until the next call.
+     */
+    ByteBuffer next() throws IOException {
+        while (!hasFrame()) {
+            if (!fill()) {
+                return null;
+            }
+        }
+        int length = buffer.getInt();
+        ByteBuffer frame = buffer.slice(buffer.position(), length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(buffer.position() + length);
+        return frame;
+    }
+
+    /**
+     * Whether a whole frame is buffered; throws once the length of the
+     * next frame is known to be invalid.
+     */
+    boolean hasFrame() throws ProtocolException {
+        return buffer.remaining() >= Integer.BYTES
+                && buffer.remaining() - Integer.BYTES >= nextLength();
+    }
+
+    /*
+     * Every frame holds at least its operation byte.
+     */
+    private int nextLength() throws ProtocolException {
+        int length = buffer.getInt(buffer.position());
+        if (length < 1 || length > TempProtocol.MAX_FRAME) {
+            throw new ProtocolException("Bad frame length!");
+        }
+        return length;
+    }
+
+    private boolean fill() throws IOException {
+        int needed = Integer.BYTES;
+        if (buffer.remaining() >= Integer.BYTES) {
+            needed += nextLength();
+        }
+        buffer.compact();
+        if (needed > buffer.capacity()) {
+            buffer.flip();
+            buffer = ByteBuffer.allocate(Math.max(needed,
+                    2 * buffer.capacity())).order(ByteOrder.LITTLE_ENDIAN)
+                    .put(buffer);
+        }
+        int read = channel.read(buffer);
+        buffer.flip();
+        return read >= 0;
+    }
+}
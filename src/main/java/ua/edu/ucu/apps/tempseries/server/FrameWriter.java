@@ -0,0 +1,43 @@
+package ua.edu.ucu.apps.tempseries.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Collects outgoing frames in one growing buffer so that a batch of them
+ * goes out in a single write.
+ */
+final class FrameWriter {
+    private ByteBuffer buffer = ByteBuffer
+            .allocate(TempProtocol.INITIAL_BUFFER)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Starts a frame of the given length and returns the buffer to put
+     * its bytes into.
+     */
+    ByteBuffer begin(int length) {
+        if (buffer.remaining() < Integer.BYTES + length) {
+            buffer.flip();
+            buffer = ByteBuffer.allocate(Math.max(
+                    buffer.limit() + Integer.BYTES + length,
+                    2 * buffer.capacity())).order(ByteOrder.LITTLE_ENDIAN)
+                    .put(buffer);
+        }
+        return buffer.putInt(length);
+    }
+
+    boolean isEmpty() {
+        return buffer.position() == 0;
+    }
+
+    void flush(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,94 @@
+package ua.edu.ucu.apps.tempseries.server;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format shared by the server and the client. Every message is a
+ * little-endian frame: an int with the number of bytes that follow, then
+ * the operation byte. Requests continue with the series name (a short
+ * length and UTF-8 bytes) and the arguments; responses continue with a
+ * status byte and either the result or an error message.
+ *
+ * ADD_TEMPS carries an int count and that many doubles and answers the new
+ * size as an int. SUMMARY answers a serialized TempAccumulator. RANGE
+ * carries the lower and upper bound and answers an int count and the
+ * doubles. CLOSEST carries the value and answers a double. No frame is
+ * longer than MAX_FRAME bytes; a request or answer that would be is
+ * refused before anything is written.
+ */
+final class TempProtocol {
+    static final byte ADD_TEMPS = 1;
+    static final byte SUMMARY = 2;
+    static final byte RANGE = 3;
+    static final byte CLOSEST = 4;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    static final int MAX_FRAME = 1 << 26;
+    static final int INITIAL_BUFFER = 1 << 16;
+
+    private static final String UNIX_PREFIX = "unix:";
+
+    private TempProtocol() {
+    }
+
+    static byte[] encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("The name is too long!");
+        }
+        return bytes;
+    }
+
+    /*
+     * Returns length as an int, or throws when the reader at the other end
+     * would refuse a frame that long.
+     */
+    static int frameLength(long length) {
+        if (length > MAX_FRAME) {
+            throw new IllegalArgumentException("The frame is too large!");
+        }
+        return (int) length;
+    }
+
+    static int stringBytes(byte[] encoded) {
+        return Short.BYTES + encoded.length;
+    }
+
+    static void putString(ByteBuffer target, byte[] encoded) {
+        target.putShort((short) encoded.length).put(encoded);
+    }
+
+    static String getString(ByteBuffer source) {
+        int length = source.getShort();
+        if (length < 0 || length > source.remaining()) {
+            throw new IllegalArgumentException("Bad string length!");
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses "unix:&lt;path&gt;" as a Unix domain socket and
+     * "&lt;host&gt;:&lt;port&gt;" as a TCP address.
+     */
+    static SocketAddress parseAddress(String address) {
+        if (address.startsWith(UNIX_PREFIX)) {
+            return UnixDomainSocketAddress.of(
+                    address.substring(UNIX_PREFIX.length()));
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException(
+                    "Expected host:port or unix:path!");
+        }
+        return new InetSocketAddress(address.substring(0, colon),
+                Integer.parseInt(address.substring(colon + 1)));
+    }
+}
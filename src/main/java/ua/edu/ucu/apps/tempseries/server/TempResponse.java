@@ -0,0 +1,69 @@
+package ua.edu.ucu.apps.tempseries.server;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+
+/**
+ * One answer of a TempSeriesServer. The getter matching the request reads
+ * the result; if the server rejected the request, every getter throws an
+ * IllegalArgumentException with the server's message instead.
+ */
+public final class TempResponse {
+    private final byte operation;
+    private final String error;
+    private final ByteBuffer payload;
+
+    TempResponse(ByteBuffer frame) {
+        this.operation = frame.get();
+        if (frame.get() == TempProtocol.ERROR) {
+            this.error = TempProtocol.getString(frame);
+            this.payload = null;
+        } else {
+            this.error = null;
+            this.payload = ByteBuffer.allocate(frame.remaining())
+                    .order(ByteOrder.LITTLE_ENDIAN).put(frame).flip();
+        }
+    }
+
+    public boolean isError() {
+        return error != null;
+    }
+
+    /**
+     * The size of the series after an addTemps request.
+     */
+    public int getSize() {
+        return result(TempProtocol.ADD_TEMPS).getInt(0);
+    }
+
+    public TempSummaryStatistics getStatistics() {
+        return TempAccumulator.readFrom(result(TempProtocol.SUMMARY)
+                .duplicate().order(ByteOrder.LITTLE_ENDIAN)).toSummary();
+    }
+
+    public double[] getTemps() {
+        ByteBuffer result = result(TempProtocol.RANGE);
+        double[] temps = new double[result.getInt(0)];
+        result.slice(Integer.BYTES, temps.length * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(temps);
+        return temps;
+    }
+
+    public double getTemp() {
+        return result(TempProtocol.CLOSEST).getDouble(0);
+    }
+
+    private ByteBuffer result(byte expected) {
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        if (operation != expected) {
+            throw new IllegalStateException(
+                    "The response is for another operation!");
+        }
+        return payload;
+    }
+}
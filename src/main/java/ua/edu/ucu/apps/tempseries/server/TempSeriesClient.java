@@ -0,0 +1,123 @@
+package ua.edu.ucu.apps.tempseries.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+
+/**
+ * Connection to a TempSeriesServer. The send methods only buffer a
+ * request; flush() writes all buffered requests at once and receive()
+ * returns the answers in the order the requests were sent, which allows
+ * any number of requests to be in flight. The remaining methods send one
+ * request and wait for its answer. A request longer than the protocol's
+ * frame limit is refused with an IllegalArgumentException before any of
+ * it is buffered.
+ *
+ * The server writes its answers while the client may still be sending, so
+ * a client that pipelines a lot of data should keep receiving instead of
+ * sending everything first. A client is not safe for use by several
+ * threads.
+ */
+public final class TempSeriesClient implements Closeable {
+    private final SocketChannel channel;
+    private final FrameReader reader;
+    private final FrameWriter writer = new FrameWriter();
+
+    private TempSeriesClient(SocketChannel channel) {
+        this.channel = channel;
+        this.reader = new FrameReader(channel);
+    }
+
+    public static TempSeriesClient connect(SocketAddress address)
+            throws IOException {
+        return new TempSeriesClient(SocketChannel.open(address));
+    }
+
+    public void sendAddTemps(String series, double[] temps, int from,
+            int to) {
+        Objects.checkFromToIndex(from, to, temps.length);
+        ByteBuffer target = begin(TempProtocol.ADD_TEMPS, series,
+                Integer.BYTES + (long) (to - from) * Double.BYTES)
+                .putInt(to - from);
+        target.asDoubleBuffer().put(temps, from, to - from);
+        target.position(target.position() + (to - from) * Double.BYTES);
+    }
+
+    public void sendSummaryStatistics(String series) {
+        begin(TempProtocol.SUMMARY, series, 0);
+    }
+
+    public void sendFindTempsInRange(String series, double lowerBound,
+            double upperBound) {
+        begin(TempProtocol.RANGE, series, 2 * Double.BYTES)
+                .putDouble(lowerBound).putDouble(upperBound);
+    }
+
+    public void sendFindTempClosestToValue(String series, double tempValue) {
+        begin(TempProtocol.CLOSEST, series, Double.BYTES)
+                .putDouble(tempValue);
+    }
+
+    public void flush() throws IOException {
+        writer.flush(channel);
+    }
+
+    /**
+     * Waits for the answer to the oldest request not yet received. Buffered
+     * requests are flushed first.
+     */
+    public TempResponse receive() throws IOException {
+        if (!writer.isEmpty()) {
+            flush();
+        }
+        ByteBuffer frame = reader.next();
+        if (frame == null) {
+            throw new EOFException("The server closed the connection!");
+        }
+        return new TempResponse(frame);
+    }
+
+    public int addTemps(String series, double... temps) throws IOException {
+        sendAddTemps(series, temps, 0, temps.length);
+        return receive().getSize();
+    }
+
+    public TempSummaryStatistics summaryStatistics(String series)
+            throws IOException {
+        sendSummaryStatistics(series);
+        return receive().getStatistics();
+    }
+
+    public double[] findTempsInRange(String series, double lowerBound,
+            double upperBound) throws IOException {
+        sendFindTempsInRange(series, lowerBound, upperBound);
+        return receive().getTemps();
+    }
+
+    public double findTempClosestToValue(String series, double tempValue)
+            throws IOException {
+        sendFindTempClosestToValue(series, tempValue);
+        return receive().getTemp();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer begin(byte operation, String series,
+            long argumentBytes) {
+        byte[] name = TempProtocol.encode(series);
+        ByteBuffer target = writer.begin(TempProtocol.frameLength(
+                1 + TempProtocol.stringBytes(name) + argumentBytes))
+                .put(operation);
+        TempProtocol.putString(target, name);
+        return target;
+    }
+}
@@ -0,0 +1,198 @@
+package ua.edu.ucu.apps.tempseries.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives a TempSeriesServer from several connections and measures it. Each
+ * connection sends its requests in pipelined windows of the given depth:
+ * one addTemps of a batch of samples followed by summaryStatistics,
+ * findTempClosestToValue and findTempsInRange requests in turn, all
+ * against one series shared by the connections of a run. The latency of a
+ * request runs from the flush of its window to the arrival of its answer.
+ *
+ * Run with: java -cp target/classes
+ * ua.edu.ucu.apps.tempseries.server.TempSeriesLoadGenerator
+ * host:port|unix:path [connections requests depth batch]
+ */
+public final class TempSeriesLoadGenerator {
+    private static final String SERIES_PREFIX = "load-";
+    private static final int QUERY_KINDS = 3;
+    private static final double SPREAD = 30;
+    private static final double RANGE_WIDTH = 0.5;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+    private static final double HUNDRED = 100;
+    private static final int[] DEFAULTS = {4, 10_000, 16, 16};
+
+    private final SocketAddress address;
+    private final int connections;
+    private final int requests;
+    private final int depth;
+    private final int batch;
+    private final String series = SERIES_PREFIX + System.nanoTime();
+
+    /**
+     * Plans requests requests on each of connections connections, depth
+     * at a time, appending batch samples once per window.
+     */
+    public TempSeriesLoadGenerator(SocketAddress address, int connections,
+            int requests, int depth, int batch) {
+        if (connections < 1 || requests < 1 || depth < 1 || batch < 1) {
+            throw new IllegalArgumentException(
+                    "Load parameters must be positive!");
+        }
+        this.address = address;
+        this.connections = connections;
+        this.requests = requests;
+        this.depth = depth;
+        this.batch = batch;
+    }
+
+    public static void main(String[] args) throws IOException,
+            InterruptedException {
+        if (args.length != 1 && args.length != DEFAULTS.length + 1) {
+            throw new IllegalArgumentException("Usage: TempSeriesLoadGenerator"
+                    + " host:port|unix:path [connections requests depth"
+                    + " batch]");
+        }
+        int[] parameters = DEFAULTS.clone();
+        for (int i = 1; i < args.length; i++) {
+            parameters[i - 1] = Integer.parseInt(args[i]);
+        }
+        Result result = new TempSeriesLoadGenerator(
+                TempProtocol.parseAddress(args[0]), parameters[0],
+                parameters[1], parameters[2],
+                parameters[parameters.length - 1]).run();
+        System.out.printf("requests: %d, errors: %d, throughput: %.0f req/s,"
+                + " p50: %.1f us, p99: %.1f us%n", result.getRequests(),
+                result.getErrors(), result.getThroughput(),
+                result.getLatencyNanos(P50) / NANOS_PER_MICRO,
+                result.getLatencyNanos(P99) / NANOS_PER_MICRO);
+    }
+
+    public Result run() throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        try {
+            long started = System.nanoTime();
+            Future<?>[] runs = new Future<?>[connections];
+            long[][] latencies = new long[connections][];
+            int[] errors = new int[connections];
+            for (int c = 0; c < connections; c++) {
+                int connection = c;
+                runs[c] = pool.submit(() -> {
+                    latencies[connection] = drive(connection, errors);
+                    return null;
+                });
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+            long elapsed = System.nanoTime() - started;
+            long[] all = new long[connections * requests];
+            int errorCount = 0;
+            for (int c = 0; c < connections; c++) {
+                System.arraycopy(latencies[c], 0, all, c * requests,
+                        requests);
+                errorCount += errors[c];
+            }
+            Arrays.sort(all);
+            return new Result(all, errorCount, elapsed);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private long[] drive(int connection, int[] errors) throws IOException {
+        Random random = new Random(connection);
+        double[] samples = new double[batch];
+        long[] latencies = new long[requests];
+        try (TempSeriesClient client = TempSeriesClient.connect(address)) {
+            for (int first = 0; first < requests; first += depth) {
+                int last = Math.min(first + depth, requests);
+                for (int i = 0; i < batch; i++) {
+                    samples[i] = random.nextGaussian() * SPREAD;
+                }
+                client.sendAddTemps(series, samples, 0, batch);
+                for (int r = first + 1; r < last; r++) {
+                    sendQuery(client, r, random.nextGaussian() * SPREAD);
+                }
+                long flushed = System.nanoTime();
+                client.flush();
+                for (int r = first; r < last; r++) {
+                    if (client.receive().isError()) {
+                        errors[connection]++;
+                    }
+                    latencies[r] = System.nanoTime() - flushed;
+                }
+            }
+        }
+        return latencies;
+    }
+
+    private void sendQuery(TempSeriesClient client, int request,
+            double value) {
+        switch (request % QUERY_KINDS) {
+            case 0:
+                client.sendSummaryStatistics(series);
+                break;
+            case 1:
+                client.sendFindTempClosestToValue(series, value);
+                break;
+            default:
+                client.sendFindTempsInRange(series, value,
+                        value + RANGE_WIDTH);
+                break;
+        }
+    }
+
+    /**
+     * Request count, failures, throughput and latency percentiles of a run.
+     */
+    public static final class Result {
+        private final long[] sortedLatencies;
+        private final int errors;
+        private final long elapsedNanos;
+
+        Result(long[] sortedLatencies, int errors, long elapsedNanos) {
+            this.sortedLatencies = sortedLatencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getRequests() {
+            return sortedLatencies.length;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public double getThroughput() {
+            return sortedLatencies.length * NANOS_PER_SECOND / elapsedNanos;
+        }
+
+        public long getLatencyNanos(double percentile) {
+            if (percentile < 0 || percentile > HUNDRED) {
+                throw new IllegalArgumentException(
+                        "Percentile must be between 0 and 100!");
+            }
+            int rank = (int) Math.ceil(percentile / HUNDRED
+                    * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, rank)];
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package ua.edu.ucu.apps.tempseries.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Serves named TemperatureSeriesAnalysis instances over TCP or a Unix
+ * domain socket, in the format described by TempProtocol. A series is
+ * created by the first ADD_TEMPS naming it, or up front with host().
+ *
+ * Every connection runs on its own virtual thread when the runtime has
+ * them and on a pooled platform thread otherwise. A connection answers its
+ * requests in order and flushes the answers only when no further request
+ * is buffered, so pipelined requests share writes. Calls on one series are
+ * serialized by locking it.
+ */
+public final class TempSeriesServer implements Closeable {
+    private static final String MALFORMED = "Malformed request!";
+
+    private final ServerSocketChannel channel;
+    private final SocketAddress address;
+    private final ExecutorService executor = connectionExecutor();
+    private final Map<String, TemperatureSeriesAnalysis> series =
+            new ConcurrentHashMap<>();
+    private final Set<SocketChannel> clients = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+
+    private TempSeriesServer(ServerSocketChannel channel) throws IOException {
+        this.channel = channel;
+        this.address = channel.getLocalAddress();
+        this.acceptor = new Thread(this::acceptConnections,
+                "temp-series-acceptor");
+        acceptor.setDaemon(true);
+    }
+
+    /**
+     * Binds to address, which may use port 0 to pick a free port, and
+     * starts accepting connections.
+     */
+    public static TempSeriesServer start(SocketAddress address)
+            throws IOException {
+        ServerSocketChannel channel;
+        if (address instanceof UnixDomainSocketAddress) {
+            channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            channel = ServerSocketChannel.open();
+        }
+        channel.bind(address);
+        TempSeriesServer server = new TempSeriesServer(channel);
+        server.acceptor.start();
+        return server;
+    }
+
+    /**
+     * Runs a server on the address given as "host:port" or "unix:path"
+     * until the process is stopped.
+     */
+    public static void main(String[] args) throws IOException,
+            InterruptedException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException(
+                    "Usage: TempSeriesServer host:port|unix:path");
+        }
+        TempSeriesServer server =
+                start(TempProtocol.parseAddress(args[0]));
+        server.acceptor.join();
+    }
+
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Serves analysis under name, replacing any series of that name.
+     */
+    public void host(String name, TemperatureSeriesAnalysis analysis) {
+        series.put(name, analysis);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+        executor.shutdown();
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+
+    /*
+     * Executors.newVirtualThreadPerTaskExecutor() only exists from Java 21
+     * on, so it is looked up reflectively.
+     */
+    private static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "temp-series-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void acceptConnections() {
+        try {
+            while (channel.isOpen()) {
+                SocketChannel client = channel.accept();
+                clients.add(client);
+                executor.execute(() -> serve(client));
+            }
+        } catch (IOException e) {
+            /* The channel was closed. */
+            return;
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        FrameReader reader = new FrameReader(client);
+        FrameWriter writer = new FrameWriter();
+        double[] scratch = new double[0];
+        try {
+            ByteBuffer frame = reader.next();
+            while (frame != null) {
+                scratch = handle(frame, writer, scratch);
+                if (!reader.hasFrame()) {
+                    writer.flush(client);
+                }
+                frame = reader.next();
+            }
+        } catch (IOException e) {
+            /* The connection broke or sent a bad frame; drop it. */
+            return;
+        } finally {
+            clients.remove(client);
+            closeQuietly(client);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            return;
+        }
+    }
+
+    /*
+     * Returns the scratch array for appended samples, grown if this request
+     * needed a larger one.
+     */
+    private double[] handle(ByteBuffer frame, FrameWriter writer,
+            double[] scratch) {
+        byte operation = 0;
+        try {
+            operation = frame.get();
+            String name = TempProtocol.getString(frame);
+            if (operation == TempProtocol.ADD_TEMPS) {
+                return addTemps(name, frame, writer, scratch);
+            }
+            TemperatureSeriesAnalysis analysis = series.get(name);
+            if (analysis == null) {
+                throw new IllegalArgumentException("Unknown series!");
+            }
+            synchronized (analysis) {
+                answer(operation, analysis, frame, writer);
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            writeError(writer, operation, e.getMessage());
+        } catch (BufferUnderflowException e) {
+            writeError(writer, operation, MALFORMED);
+        }
+        return scratch;
+    }
+
+    private double[] addTemps(String name, ByteBuffer frame,
+            FrameWriter writer, double[] scratch) {
+        int count = frame.getInt();
+        if (count < 0 || count > frame.remaining() / Double.BYTES) {
+            throw new IllegalArgumentException(MALFORMED);
+        }
+        double[] temps = scratch;
+        if (temps.length < count) {
+            temps = new double[count];
+        }
+        frame.asDoubleBuffer().get(temps, 0, count);
+        TemperatureSeriesAnalysis analysis = series.computeIfAbsent(name,
+                key -> new TemperatureSeriesAnalysis());
+        int size;
+        synchronized (analysis) {
+            size = analysis.addTemps(temps, 0, count);
+        }
+        writer.begin(2 + Integer.BYTES).put(TempProtocol.ADD_TEMPS)
+                .put(TempProtocol.OK).putInt(size);
+        return temps;
+    }
+
+    private static void answer(byte operation,
+            TemperatureSeriesAnalysis analysis, ByteBuffer frame,
+            FrameWriter writer) {
+        switch (operation) {
+            case TempProtocol.SUMMARY:
+                TempAccumulator stats =
+                        analysis.summaryStatistics(new TempAccumulator());
+                stats.writeTo(writer.begin(2 + TempAccumulator.SERIALIZED_BYTES)
+                        .put(operation).put(TempProtocol.OK));
+                break;
+            case TempProtocol.RANGE:
+                double[] found = analysis.findTempsInRange(frame.getDouble(),
+                        frame.getDouble());
+                ByteBuffer target = writer.begin(TempProtocol.frameLength(
+                        2 + Integer.BYTES + (long) found.length * Double.BYTES))
+                        .put(operation).put(TempProtocol.OK)
+                        .putInt(found.length);
+                target.asDoubleBuffer().put(found);
+                target.position(target.position()
+                        + found.length * Double.BYTES);
+                break;
+            case TempProtocol.CLOSEST:
+                double closest =
+                        analysis.findTempClosestToValue(frame.getDouble());
+                writer.begin(2 + Double.BYTES).put(operation)
+                        .put(TempProtocol.OK).putDouble(closest);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation!");
+        }
+    }
+
+    private static void writeError(FrameWriter writer, byte operation,
+            String message) {
+        String text = message;
+        if (text == null) {
+            text = MALFORMED;
+        }
+        byte[] encoded = TempProtocol.encode(text);
+        TempProtocol.putString(writer.begin(2
+                + TempProtocol.stringBytes(encoded)).put(operation)
+                .put(TempProtocol.ERROR), encoded);
+    }
+}
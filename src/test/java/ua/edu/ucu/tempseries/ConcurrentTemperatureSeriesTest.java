@@ -0,0 +1,128 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.ConcurrentTemperatureSeries;
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class ConcurrentTemperatureSeriesTest {
+    private static final int WRITERS = 8;
+    private static final int BATCHES = 20_000;
+
+    @Test
+    public void testSingleThreadedUse() {
+        ConcurrentTemperatureSeries series = new ConcurrentTemperatureSeries(2);
+        series.addTemps(1.0, 2.0);
+        series.addTemps(new double[]{0.0, 3.0, 4.0, 9.0}, 1, 3);
+
+        TempSummaryStatistics stats = series.summaryStatistics();
+        assertEquals(4, series.size());
+        assertEquals(2.5, stats.getAvgTemp(), 0.00001);
+        assertEquals(1.0, stats.getMinTemp(), 0.0);
+        assertEquals(4.0, stats.getMaxTemp(), 0.0);
+        assertArrayEquals(new double[]{1.0, 2.0, 3.0, 4.0}, series.snapshot().sortTemps(), 0.0);
+    }
+
+    @Test
+    public void testEmptySeries() {
+        ConcurrentTemperatureSeries series = new ConcurrentTemperatureSeries();
+
+        assertThrows(IllegalArgumentException.class, series::summaryStatistics);
+        assertEquals(0, series.snapshot().getTsa().length);
+    }
+
+    @Test
+    public void testSnapshotCopiesSamplesOnce() {
+        ConcurrentTemperatureSeries series = new ConcurrentTemperatureSeries(4);
+        double[] temps = new double[1_000_000];
+        Arrays.fill(temps, 1.5);
+        series.addTemps(temps);
+        series.snapshot();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        TemperatureSeriesAnalysis snapshot = series.snapshot();
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(1.5, snapshot.average(), 0.0);
+        assertTrue("allocated " + allocated + " bytes",
+                allocated < 3L * temps.length * Double.BYTES / 2);
+    }
+
+    @Test
+    public void testConcurrentWritersAndReaders() throws Exception {
+        ConcurrentTemperatureSeries series = new ConcurrentTemperatureSeries(4);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            double base = w * 10.0;
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < BATCHES; i++) {
+                    series.addTemps(base - 1.0, base, base + 1.0);
+                }
+                return null;
+            }));
+        }
+        Future<?> statsReader = pool.submit(() -> {
+            start.await();
+            TempAccumulator holder = new TempAccumulator();
+            while (writing.get()) {
+                if (series.size() > 0) {
+                    series.summaryStatistics(holder);
+                    assertEquals(0, holder.getCount() % 3);
+                    assertTrue(holder.getMinTemp() >= -1.0);
+                    assertTrue(holder.getMaxTemp() <= (WRITERS - 1) * 10.0 + 1.0);
+                }
+            }
+            return null;
+        });
+        Future<?> snapshotReader = pool.submit(() -> {
+            start.await();
+            while (writing.get()) {
+                TemperatureSeriesAnalysis snapshot = series.snapshot();
+                double[] temps = snapshot.getTsa();
+                assertEquals(0, temps.length % 3);
+                for (int i = 0; i < temps.length; i += 3) {
+                    assertEquals(temps[i] + 1.0, temps[i + 1], 0.0);
+                    assertEquals(temps[i] + 2.0, temps[i + 2], 0.0);
+                }
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        statsReader.get(60, TimeUnit.SECONDS);
+        snapshotReader.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        TempSummaryStatistics stats = series.summaryStatistics();
+        assertEquals(WRITERS * BATCHES * 3, series.size());
+        assertEquals((WRITERS - 1) * 5.0, stats.getAvgTemp(), 0.000001);
+        assertEquals(-1.0, stats.getMinTemp(), 0.0);
+        assertEquals((WRITERS - 1) * 10.0 + 1.0, stats.getMaxTemp(), 0.0);
+        assertEquals(WRITERS * BATCHES * 3, series.snapshot().getTsa().length);
+    }
+}
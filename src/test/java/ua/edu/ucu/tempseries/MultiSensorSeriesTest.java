@@ -0,0 +1,101 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.MultiSensorSeries;
+import ua.edu.ucu.apps.tempseries.SensorStatistics;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class MultiSensorSeriesTest {
+
+    private static double[][] sensors(int count) {
+        Random random = new Random(7);
+        double[][] series = new double[count][];
+        for (int s = 0; s < count; s++) {
+            series[s] = new double[random.nextInt(3000)];
+            for (int i = 0; i < series[s].length; i++) {
+                series[s][i] = Math.round((random.nextGaussian() * 15.0 + s % 20) * 10.0) / 10.0;
+            }
+        }
+        series[3] = new double[0];
+        return series;
+    }
+
+    private static void assertMatchesSeparateSeries(double[][] series, MultiSensorSeries packed) {
+        assertEquals(series.length, packed.sensorCount());
+        SensorStatistics stats = packed.summaryStatistics();
+        int[] counts = packed.countInRange(-5.0, 10.0);
+        MultiSensorSeries found = packed.findTempsInRange(-5.0, 10.0);
+        double[] closestToZero = packed.findTempsClosestToZero();
+        double[] closestToValue = packed.findTempsClosestToValue(12.3);
+        for (int s = 0; s < series.length; s++) {
+            assertEquals(series[s].length, packed.size(s));
+            assertEquals(series[s].length, stats.getCounts()[s]);
+            if (series[s].length == 0) {
+                assertTrue(Double.isNaN(stats.getAvgTemps()[s]));
+                assertTrue(Double.isNaN(closestToZero[s]));
+                assertEquals(0, counts[s]);
+                continue;
+            }
+            TemperatureSeriesAnalysis single = new TemperatureSeriesAnalysis(series[s]);
+            TempSummaryStatistics expected = single.summaryStatistics();
+            TempSummaryStatistics actual = stats.toSummary(s);
+            assertEquals(expected.getAvgTemp(), actual.getAvgTemp(), 1e-9);
+            assertEquals(expected.getDevTemp(), actual.getDevTemp(), 1e-9);
+            assertEquals(expected.getMinTemp(), actual.getMinTemp(), 0.0);
+            assertEquals(expected.getMaxTemp(), actual.getMaxTemp(), 0.0);
+            assertEquals(single.findTempClosestToZero(), closestToZero[s], 0.0);
+            assertEquals(single.findTempClosestToValue(12.3), closestToValue[s], 0.0);
+            assertArrayEquals(single.findTempsInRange(-5.0, 10.0), found.sensor(s).sortTemps(), 0.0);
+            assertEquals(counts[s], found.size(s));
+        }
+    }
+
+    @Test
+    public void testBatchMatchesSeparateSeries() {
+        double[][] series = sensors(200);
+        assertMatchesSeparateSeries(series, MultiSensorSeries.of(series));
+    }
+
+    @Test
+    public void testParallelBatchMatchesSeparateSeries() {
+        double[][] series = sensors(200);
+        MultiSensorSeries packed = new MultiSensorSeries(1);
+        for (double[] temps : series) {
+            packed.addSensor(temps);
+        }
+        assertMatchesSeparateSeries(series, packed);
+    }
+
+    @Test
+    public void testClosestTiesPreferPositiveNearZero() {
+        MultiSensorSeries packed = MultiSensorSeries.of(
+                new double[] {-2.0, 3.0, 2.0}, new double[] {-1.5, 4.0}, new double[] {5.0, -3.0, 3.0});
+        assertArrayEquals(new double[] {2.0, -1.5, 3.0}, packed.findTempsClosestToZero(), 0.0);
+        assertArrayEquals(new double[] {-2.0, 4.0, -3.0}, packed.findTempsClosestToValues(-2.0, 3.9, -3.1), 0.0);
+    }
+
+    @Test
+    public void testAddSensorFromSubRange() {
+        MultiSensorSeries packed = new MultiSensorSeries();
+        assertEquals(0, packed.addSensor(new double[] {9.0, 1.0, 2.0, 9.0}, 1, 3));
+        assertEquals(1, packed.addSensor(4.0));
+        assertEquals(3, packed.totalSize());
+        assertArrayEquals(new double[] {1.0, 2.0}, packed.sensor(0).getTsa(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptySensorSummaryThrows() {
+        MultiSensorSeries.of(new double[] {1.0}, new double[0]).summaryStatistics().toSummary(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClosestToValuesNeedsOneValuePerSensor() {
+        MultiSensorSeries.of(new double[] {1.0}, new double[] {2.0}).findTempsClosestToValues(1.0);
+    }
+}
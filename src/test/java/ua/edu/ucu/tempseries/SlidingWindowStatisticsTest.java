@@ -0,0 +1,134 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.SlidingWindowStatistics;
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class SlidingWindowStatisticsTest {
+
+    @Test
+    public void testCountWindow() {
+        SlidingWindowStatistics window = SlidingWindowStatistics.ofCount(3);
+        window.addTemps(5.0, -1.0, 2.0);
+        assertEquals(2.0, window.average(), 0.00001);
+        assertEquals(-1.0, window.min(), 0.0);
+        assertEquals(5.0, window.max(), 0.0);
+
+        window.add(4.0);
+        TempSummaryStatistics stats = window.summaryStatistics();
+        assertEquals(3, window.size());
+        assertEquals(5.0 / 3, stats.getAvgTemp(), 0.00001);
+        assertEquals(-1.0, stats.getMinTemp(), 0.0);
+        assertEquals(4.0, stats.getMaxTemp(), 0.0);
+
+        window.add(3.0);
+        assertEquals(3.0, window.average(), 0.00001);
+        assertEquals(Math.sqrt(2.0 / 3), window.deviation(), 0.00001);
+        assertEquals(2.0, window.min(), 0.0);
+    }
+
+    @Test
+    public void testRecomputeRestoresExactMoments() {
+        int count = 100;
+        for (int seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            double[] temps = new double[2 * count];
+            for (int i = 0; i < temps.length; i++) {
+                temps[i] = 1e5 + random.nextGaussian() * 0.37;
+            }
+            SlidingWindowStatistics window = SlidingWindowStatistics.ofCount(count);
+            window.addTemps(temps);
+
+            TempAccumulator expected = new TemperatureSeriesAnalysis(Arrays.copyOfRange(temps, count, temps.length))
+                    .summaryStatistics(new TempAccumulator());
+            TempAccumulator actual = window.summaryStatistics(new TempAccumulator());
+            assertEquals(expected.getAvgTemp(), actual.getAvgTemp(), 0.0);
+            assertEquals(expected.getM2(), actual.getM2(), 0.0);
+        }
+    }
+
+    @Test
+    public void testTimedWindow() {
+        SlidingWindowStatistics window = SlidingWindowStatistics.ofSpan(10);
+        window.add(0, 1.0);
+        window.add(5, 3.0);
+        window.add(9, 8.0);
+        assertEquals(3, window.size());
+        assertEquals(4.0, window.average(), 0.00001);
+
+        window.add(12, 2.0);
+        assertEquals(3, window.size());
+        assertEquals(2.0, window.min(), 0.0);
+        assertEquals(8.0, window.max(), 0.0);
+
+        window.advanceTo(19);
+        assertEquals(1, window.size());
+        assertEquals(2.0, window.max(), 0.0);
+
+        window.advanceTo(22);
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    public void testWindowsMatchFullRecomputation() {
+        Random random = new Random(7);
+        int span = 50;
+        SlidingWindowStatistics counted = SlidingWindowStatistics.ofCount(span);
+        SlidingWindowStatistics timed = SlidingWindowStatistics.ofSpan(span);
+        double[] temps = new double[10_000];
+        TempAccumulator target = new TempAccumulator();
+        for (int i = 0; i < temps.length; i++) {
+            temps[i] = 1000 + random.nextGaussian() * 20;
+            counted.add(temps[i]);
+            timed.add(i, temps[i]);
+            if (i % 97 == 0) {
+                double[] last = Arrays.copyOfRange(temps,
+                        Math.max(0, i + 1 - span), i + 1);
+                TempSummaryStatistics expected =
+                        new TemperatureSeriesAnalysis(last).summaryStatistics();
+                for (SlidingWindowStatistics window
+                        : new SlidingWindowStatistics[]{counted, timed}) {
+                    TempSummaryStatistics actual = window.summaryStatistics();
+                    assertEquals(last.length, window.size());
+                    assertEquals(expected.getAvgTemp(), actual.getAvgTemp(), 1e-9);
+                    assertEquals(expected.getDevTemp(), actual.getDevTemp(), 1e-7);
+                    assertEquals(expected.getMinTemp(), actual.getMinTemp(), 0.0);
+                    assertEquals(expected.getMaxTemp(), actual.getMaxTemp(), 0.0);
+                    assertEquals(last.length, window.summaryStatistics(target).getCount());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyWindow() {
+        SlidingWindowStatistics.ofCount(3).summaryStatistics();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimestampsGoingBackwards() {
+        SlidingWindowStatistics window = SlidingWindowStatistics.ofSpan(10);
+        window.add(5, 1.0);
+        window.add(4, 1.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTimedWindowWithoutTimestamp() {
+        SlidingWindowStatistics.ofSpan(10).add(1.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCountWindowCannotAdvance() {
+        SlidingWindowStatistics window = SlidingWindowStatistics.ofCount(3);
+        window.add(1.0);
+        window.advanceTo(10);
+    }
+}
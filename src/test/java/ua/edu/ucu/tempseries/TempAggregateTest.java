@@ -0,0 +1,158 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempAggregate;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class TempAggregateTest {
+
+    @Test
+    public void testShardsCombineToWholeSeries() {
+        int n = 200_000;
+        double[] temperatureSeries = new double[n];
+        for (int i = 0; i < n; i++) {
+            temperatureSeries[i] = 15.0 + Math.sin(i * 0.37) * 25.0;
+        }
+        int shards = 4;
+        byte[][] shipped = new byte[shards][];
+        for (int s = 0; s < shards; s++) {
+            TemperatureSeriesAnalysis shard = new TemperatureSeriesAnalysis(
+                    Arrays.copyOfRange(temperatureSeries, s * n / shards, (s + 1) * n / shards));
+            shard.enableQuantileSketch();
+            shipped[s] = shard.aggregate().toBytes();
+        }
+
+        TempAggregate left = TempAggregate.fromBytes(shipped[0]).combine(TempAggregate.fromBytes(shipped[1]));
+        TempAggregate right = TempAggregate.fromBytes(shipped[2]).combine(TempAggregate.fromBytes(shipped[3]));
+        TempAggregate total = left.combine(right);
+
+        TemperatureSeriesAnalysis whole = new TemperatureSeriesAnalysis(temperatureSeries);
+        TempSummaryStatistics expected = whole.summaryStatistics();
+        TempAccumulator stats = total.getStats();
+        assertEquals(n, stats.getCount());
+        assertEquals(expected.getAvgTemp(), stats.getAvgTemp(), 1e-9);
+        assertEquals(expected.getDevTemp(), stats.getDevTemp(), 1e-9);
+        assertEquals(expected.getMinTemp(), stats.getMinTemp(), 0.0);
+        assertEquals(expected.getMaxTemp(), stats.getMaxTemp(), 0.0);
+        assertEquals(n, total.getSketch().getCount());
+        assertEquals(whole.percentile(95), total.getSketch().percentile(95), 1.0);
+    }
+
+    @Test
+    public void testAccumulatorRoundTripKeepsBufferOrder() {
+        TempAccumulator stats = new TemperatureSeriesAnalysis(new double[]{-2.0, 4.0, 7.5})
+                .summaryStatistics(new TempAccumulator());
+        ByteBuffer buffer = ByteBuffer.allocate(TempAccumulator.SERIALIZED_BYTES).order(ByteOrder.BIG_ENDIAN);
+        stats.writeTo(buffer);
+        assertEquals(0, buffer.remaining());
+        assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+
+        buffer.flip();
+        TempAccumulator read = TempAccumulator.readFrom(buffer);
+        assertEquals(3, read.getCount());
+        assertEquals(stats.getAvgTemp(), read.getAvgTemp(), 0.0);
+        assertEquals(stats.getM2(), read.getM2(), 0.0);
+        assertEquals(-2.0, read.getMinTemp(), 0.0);
+        assertEquals(7.5, read.getMaxTemp(), 0.0);
+    }
+
+    @Test
+    public void testCombineWithoutSketch() {
+        TempAggregate first = new TemperatureSeriesAnalysis(new double[]{1.0, 3.0}).aggregate();
+        TemperatureSeriesAnalysis sketched = new TemperatureSeriesAnalysis(new double[]{5.0});
+        sketched.enableQuantileSketch();
+        TempAggregate combined = TempAggregate.fromBytes(
+                first.combine(sketched.aggregate()).toBytes());
+
+        assertNull(combined.getSketch());
+        assertEquals(3.0, combined.getStats().getAvgTemp(), 0.00001);
+        assertEquals(3, combined.getStats().getCount());
+    }
+
+    @Test(timeout = 10_000)
+    public void testCombineWithItselfDoublesTheShard() {
+        double[] temperatureSeries = new double[5_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = i * 0.01;
+        }
+        TemperatureSeriesAnalysis shard = new TemperatureSeriesAnalysis(temperatureSeries);
+        shard.enableQuantileSketch();
+        TempAggregate aggregate = shard.aggregate();
+
+        aggregate.combine(aggregate);
+
+        assertEquals(10_000, aggregate.getStats().getCount());
+        assertEquals(shard.average(), aggregate.getStats().getAvgTemp(), 1e-9);
+        assertEquals(10_000, aggregate.getSketch().getCount());
+        assertEquals(25.0, aggregate.getSketch().percentile(50), 1.0);
+    }
+
+    @Test
+    public void testReadingHostileSketchFails() {
+        TemperatureSeriesAnalysis shard = new TemperatureSeriesAnalysis(new double[]{1.0, 2.0});
+        shard.enableQuantileSketch();
+        byte[] bytes = shard.aggregate().toBytes();
+        int sketchStart = TempAccumulator.SERIALIZED_BYTES + 1;
+        int levelCountAt = sketchStart + 1 + Integer.BYTES + 4 * Long.BYTES;
+
+        byte[] hugeK = bytes.clone();
+        ByteBuffer.wrap(hugeK).order(ByteOrder.LITTLE_ENDIAN).putInt(sketchStart + 1, Integer.MAX_VALUE);
+        TempAggregate read = TempAggregate.fromBytes(hugeK);
+        assertEquals(2, read.getSketch().getCount());
+
+        byte[] negativeK = bytes.clone();
+        ByteBuffer.wrap(negativeK).order(ByteOrder.LITTLE_ENDIAN).putInt(sketchStart + 1, -1);
+        assertThrows(IllegalArgumentException.class, () -> TempAggregate.fromBytes(negativeK));
+
+        byte[] manyLevels = bytes.clone();
+        ByteBuffer.wrap(manyLevels).order(ByteOrder.LITTLE_ENDIAN).putInt(levelCountAt, 40);
+        assertThrows(IllegalArgumentException.class, () -> TempAggregate.fromBytes(manyLevels));
+
+        byte[] hugeLevel = bytes.clone();
+        ByteBuffer.wrap(hugeLevel).order(ByteOrder.LITTLE_ENDIAN).putInt(levelCountAt + Integer.BYTES, 1 << 30);
+        assertThrows(IllegalArgumentException.class, () -> TempAggregate.fromBytes(hugeLevel));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> TempAggregate.fromBytes(Arrays.copyOf(bytes, sketchStart + 3)));
+    }
+
+    @Test
+    public void testReadingInvalidAccumulatorFails() {
+        ByteBuffer buffer = ByteBuffer.allocate(TempAccumulator.SERIALIZED_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        new TempAccumulator().writeTo(buffer);
+        assertEquals(0, TempAccumulator.readFrom((ByteBuffer) buffer.flip()).getCount());
+
+        buffer.putDouble(1 + Long.BYTES + Double.BYTES, -1.0);
+        assertThrows(IllegalArgumentException.class, () -> TempAccumulator.readFrom((ByteBuffer) buffer.flip()));
+        assertThrows(IllegalArgumentException.class,
+                () -> TempAccumulator.readFrom(ByteBuffer.allocate(3).put(0, (byte) 'A')));
+    }
+
+    @Test
+    public void testReadingTruncatedAggregateFails() {
+        TemperatureSeriesAnalysis shard = new TemperatureSeriesAnalysis(new double[]{1.0, 2.0, 3.0});
+        byte[] plain = shard.aggregate().toBytes();
+        shard.enableQuantileSketch();
+        byte[] sketched = shard.aggregate().toBytes();
+        for (byte[] bytes : new byte[][] {plain, sketched}) {
+            for (int length = 0; length < bytes.length; length++) {
+                byte[] truncated = Arrays.copyOf(bytes, length);
+                assertThrows(IllegalArgumentException.class, () -> TempAggregate.fromBytes(truncated));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadingGarbage() {
+        TempAggregate.fromBytes(new byte[TempAccumulator.SERIALIZED_BYTES + 1]);
+    }
+}
@@ -0,0 +1,178 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.StorageMode;
+import ua.edu.ucu.apps.tempseries.TempAlertListener;
+import ua.edu.ucu.apps.tempseries.TempAlertRule;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class TempAlertRuleTest {
+
+    private static final class Recorder implements TempAlertListener {
+        private final List<TempAlertRule> rules = new ArrayList<>();
+        private final List<Integer> indices = new ArrayList<>();
+        private final List<Double> values = new ArrayList<>();
+        private final List<Double> measures = new ArrayList<>();
+
+        @Override
+        public void onAlert(TempAlertRule rule, int index, double value,
+                double measure) {
+            rules.add(rule);
+            indices.add(index);
+            values.add(value);
+            measures.add(measure);
+        }
+    }
+
+    @Test
+    public void testThresholdRulesReportOnlyNewSamples() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[] {50.0, -50.0});
+        Recorder recorder = new Recorder();
+        TempAlertRule hot = TempAlertRule.above(30.0);
+        TempAlertRule cold = TempAlertRule.below(-10.0);
+        seriesAnalysis.addAlertRule(hot, recorder);
+        seriesAnalysis.addAlertRule(cold, recorder);
+
+        seriesAnalysis.addTemps(20.0, 35.0, 30.0, -11.0);
+        seriesAnalysis.addTemps(40.0);
+
+        assertEquals(List.of(hot, cold, hot), recorder.rules);
+        assertEquals(List.of(3, 5, 6), recorder.indices);
+        assertEquals(List.of(35.0, -11.0, 40.0), recorder.values);
+        assertEquals(recorder.values, recorder.measures);
+    }
+
+    @Test
+    public void testOutsideRuleReportsNaN() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+        Recorder recorder = new Recorder();
+        seriesAnalysis.addAlertRule(TempAlertRule.outside(-5.0, 5.0), recorder);
+
+        seriesAnalysis.addTemps(0.0, Double.NaN, 5.0, -5.0);
+
+        assertEquals(List.of(1), recorder.indices);
+    }
+
+    @Test
+    public void testRateOfChangeSpansBatches() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[] {10.0});
+        Recorder recorder = new Recorder();
+        seriesAnalysis.addAlertRule(TempAlertRule.rateOfChange(2.0), recorder);
+
+        seriesAnalysis.addTemps(13.0, 14.0);
+        seriesAnalysis.addTemps(11.0, 12.0, 12.5);
+
+        assertEquals(List.of(1, 3), recorder.indices);
+        assertEquals(List.of(3.0, -3.0), recorder.measures);
+    }
+
+    @Test
+    public void testRateOfChangeSkipsFirstSampleOfEmptySeries() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+        Recorder recorder = new Recorder();
+        seriesAnalysis.addAlertRule(TempAlertRule.rateOfChange(1.0), recorder);
+
+        seriesAnalysis.addTemps(100.0, 100.5);
+
+        assertTrue(recorder.indices.isEmpty());
+    }
+
+    @Test
+    public void testRateOfChangeComparesRawSamplesAcrossBatches() {
+        for (StorageMode mode : StorageMode.values()) {
+            TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[0], mode);
+            Recorder recorder = new Recorder();
+            seriesAnalysis.addAlertRule(TempAlertRule.rateOfChange(1.998), recorder);
+
+            seriesAnalysis.addTemps(10.004, 12.0, 10.004);
+            seriesAnalysis.addTemps(12.0);
+            seriesAnalysis.addTemps(14.5);
+            seriesAnalysis.reset();
+            seriesAnalysis.addTemps(30.0);
+
+            assertEquals(mode.name(), List.of(4), recorder.indices);
+        }
+    }
+
+    @Test
+    public void testZScoreUsesMomentsBeforeBatch() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+        Recorder recorder = new Recorder();
+        seriesAnalysis.addAlertRule(TempAlertRule.zScore(3.0), recorder);
+
+        seriesAnalysis.addTemps(-1.0, 1.0, 100.0);
+        assertTrue(recorder.indices.isEmpty());
+
+        seriesAnalysis.reset();
+        seriesAnalysis.addTemps(-1.0, 1.0, -1.0, 1.0);
+        seriesAnalysis.addTemps(2.5, 4.0, -3.5);
+
+        assertEquals(List.of(5, 6), recorder.indices);
+        assertEquals(4.0, recorder.measures.get(0), 1e-12);
+        assertEquals(-3.5, recorder.measures.get(1), 1e-12);
+    }
+
+    @Test
+    public void testZScoreIgnoresConstantHistory() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[] {5.0, 5.0, 5.0});
+        Recorder recorder = new Recorder();
+        seriesAnalysis.addAlertRule(TempAlertRule.zScore(2.0), recorder);
+
+        seriesAnalysis.addTemps(5.0, 6.0, 50.0);
+        assertTrue(recorder.indices.isEmpty());
+
+        seriesAnalysis.addTemps(5.0, 50.0);
+        assertEquals(List.of(7), recorder.indices);
+    }
+
+    @Test
+    public void testChecksStoredSamplesOfEveryStorage() {
+        for (StorageMode mode : StorageMode.values()) {
+            TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[] {1.0}, mode);
+            Recorder recorder = new Recorder();
+            seriesAnalysis.addAlertRule(TempAlertRule.rateOfChange(5.0), recorder);
+            seriesAnalysis.addTemps(7.0, 8.0);
+            assertEquals(mode.name(), List.of(1), recorder.indices);
+        }
+    }
+
+    @Test
+    public void testRemovedRuleStopsReporting() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+        Recorder recorder = new Recorder();
+        TempAlertRule hot = TempAlertRule.above(0.0);
+        TempAlertRule cold = TempAlertRule.below(0.0);
+        seriesAnalysis.addAlertRule(hot, recorder);
+        seriesAnalysis.addAlertRule(cold, recorder);
+        seriesAnalysis.addAlertRule(hot, recorder);
+
+        seriesAnalysis.removeAlertRule(hot);
+        seriesAnalysis.addTemps(1.0, -1.0);
+        seriesAnalysis.removeAlertRule(cold);
+        seriesAnalysis.addTemps(2.0, -2.0);
+
+        assertEquals(List.of(cold), recorder.rules);
+        assertEquals(List.of(1), recorder.indices);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutsideRejectsReversedBounds() {
+        TempAlertRule.outside(5.0, -5.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRateOfChangeRejectsNegativeStep() {
+        TempAlertRule.rateOfChange(-1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZScoreRejectsNonPositiveLimit() {
+        TempAlertRule.zScore(0.0);
+    }
+}
@@ -0,0 +1,80 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.StorageMode;
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class TempQueryTest {
+
+    @Test
+    public void testStreamSources() {
+        TemperatureSeriesAnalysis fromStream = TemperatureSeriesAnalysis.of(
+                IntStream.range(0, 10_000).parallel().mapToDouble(i -> i % 100));
+        TemperatureSeriesAnalysis collected = IntStream.range(0, 10_000).boxed()
+                .map(i -> (double) (i % 100)).collect(TemperatureSeriesAnalysis.collector());
+
+        assertEquals(49.5, fromStream.average(), 0.00001);
+        assertEquals(49.5, collected.average(), 0.00001);
+        assertArrayEquals(fromStream.sortTemps(), collected.sortTemps(), 0.0);
+        assertEquals(10_000, collected.stream().count());
+        assertEquals(0, TemperatureSeriesAnalysis.of(DoubleStream.empty()).stream().count());
+    }
+
+    @Test
+    public void testFusedQueryMatchesMaterializedQuery() {
+        double[] temperatureSeries = new double[100_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.cos(i * 0.01) * 30.0;
+        }
+        for (StorageMode mode : StorageMode.values()) {
+            TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries, mode);
+            double[] stored = seriesAnalysis.getTsa();
+            double[] expected = Arrays.stream(stored, 1_000, 90_000)
+                    .filter(t -> t >= -10.0 && t <= 20.0).toArray();
+            TempSummaryStatistics expectedStats = new TemperatureSeriesAnalysis(expected).summaryStatistics();
+
+            TempSummaryStatistics actual = seriesAnalysis.query()
+                    .positions(1_000, 90_000).atLeast(-10.0).atMost(20.0).summaryStatistics();
+            assertEquals(expectedStats.getAvgTemp(), actual.getAvgTemp(), 1e-9);
+            assertEquals(expectedStats.getDevTemp(), actual.getDevTemp(), 1e-9);
+            assertEquals(expectedStats.getMinTemp(), actual.getMinTemp(), 0.0);
+            assertEquals(expectedStats.getMaxTemp(), actual.getMaxTemp(), 0.0);
+            assertEquals(expected.length, seriesAnalysis.query()
+                    .positions(1_000, 90_000).inRange(-10.0, 20.0).count());
+            assertArrayEquals(expected, seriesAnalysis.query()
+                    .positions(1_000, 90_000).inRange(-10.0, 20.0).toArray(), 0.0);
+            assertArrayEquals(expected, seriesAnalysis.query()
+                    .positions(1_000, 90_000).inRange(-10.0, 20.0).stream().toArray(), 0.0);
+        }
+    }
+
+    @Test
+    public void testParallelStreamOfCompressedSeries() {
+        double[] temperatureSeries = new double[2_000_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.sin(i * 0.001) * 40.0;
+        }
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(
+                temperatureSeries, StorageMode.COMPRESSED);
+        for (int run = 0; run < 5; run++) {
+            assertArrayEquals(temperatureSeries, seriesAnalysis.stream().parallel().toArray(), 0.0);
+            assertArrayEquals(Arrays.copyOfRange(temperatureSeries, 3, 1_500_000),
+                    seriesAnalysis.query().positions(3, 1_500_000).stream().parallel().toArray(), 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyQueryResult() {
+        new TemperatureSeriesAnalysis(new double[]{1.0, 2.0}).query().atLeast(5.0)
+                .summaryStatistics(new TempAccumulator());
+    }
+}
@@ -0,0 +1,87 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ua.edu.ucu.apps.tempseries.TempSeriesLoader;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class TempSeriesLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLoadCsv() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("temps.csv");
+        Files.write(file, "21.5,-3.25; 0\n+4.\r\n1e2\t.5,,-0.000125\n".getBytes(StandardCharsets.US_ASCII));
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{7.0});
+
+        int loaded = TempSeriesLoader.loadCsv(file, seriesAnalysis);
+
+        assertEquals(7, loaded);
+        double[] expected = {7.0, 21.5, -3.25, 0.0, 4.0, 100.0, 0.5, -0.000125};
+        assertArrayEquals(expected, seriesAnalysis.getTsa(), 0.0);
+        assertEquals(100.0, seriesAnalysis.max(), 0.0);
+    }
+
+    @Test
+    public void testLoadCsvParsesExactly() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        double[] expected = new double[100_000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (i - 50_000) * 0.0137;
+            csv.append(expected[i]).append('\n');
+        }
+        Path file = folder.getRoot().toPath().resolve("many.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.US_ASCII));
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+
+        assertEquals(expected.length, TempSeriesLoader.loadCsv(file, seriesAnalysis));
+        assertArrayEquals(expected, seriesAnalysis.getTsa(), 0.0);
+    }
+
+    @Test
+    public void testLoadCsvRejectsGarbage() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("bad.csv");
+        Files.write(file, "1.0,warm,2.0".getBytes(StandardCharsets.US_ASCII));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> TempSeriesLoader.loadCsv(file, new TemperatureSeriesAnalysis()));
+    }
+
+    @Test
+    public void testLoadBinary() throws IOException {
+        double[] expected = new double[70_001];
+        ByteBuffer bytes = ByteBuffer.allocate(expected.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = Math.sin(i) * 40.0;
+            bytes.putDouble(expected[i]);
+        }
+        Path file = folder.getRoot().toPath().resolve("temps.bin");
+        Files.write(file, bytes.array());
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+
+        assertEquals(expected.length, TempSeriesLoader.loadBinary(file, seriesAnalysis));
+        assertArrayEquals(expected, seriesAnalysis.getTsa(), 0.0);
+    }
+
+    @Test
+    public void testLoadBinaryRejectsTrailingBytes() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("odd.bin");
+        Files.write(file, new byte[Double.BYTES + 3]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> TempSeriesLoader.loadBinary(file, new TemperatureSeriesAnalysis()));
+    }
+}
@@ -0,0 +1,138 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.TempOperation;
+import ua.edu.ucu.apps.tempseries.TempSeriesListener;
+import ua.edu.ucu.apps.tempseries.TempSeriesMetrics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class TempSeriesMetricsTest {
+
+    @Test
+    public void testCountsCallsAndRegrowths() {
+        TempSeriesMetrics metrics = new TempSeriesMetrics();
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+        seriesAnalysis.setListener(metrics);
+        for (int i = 0; i < 10; i++) {
+            seriesAnalysis.addTemps(1.0, -2.0, 3.0);
+        }
+        seriesAnalysis.average();
+        seriesAnalysis.average();
+        seriesAnalysis.findTempClosestToZero();
+        seriesAnalysis.findTempsGreaterThen(0.0);
+        seriesAnalysis.summaryStatistics();
+
+        assertEquals(10, metrics.getCalls(TempOperation.ADD_TEMPS));
+        assertEquals(2, metrics.getCalls(TempOperation.AVERAGE));
+        assertEquals(1, metrics.getCalls(TempOperation.CLOSEST));
+        assertEquals(0, metrics.getCalls(TempOperation.RANGE));
+        assertEquals(1, metrics.getCalls(TempOperation.GREATER_THAN));
+        assertEquals(1, metrics.getCalls(TempOperation.SUMMARY));
+        assertEquals(0, metrics.getCalls(TempOperation.SORT));
+        assertEquals(30, metrics.getAppendedSamples());
+        assertEquals(30, metrics.getLargestSeries());
+        assertTrue(metrics.getRegrowths() > 0);
+        assertTrue(metrics.getCopiedBytes() > 0);
+        assertTrue(metrics.getLatencyNanos(TempOperation.ADD_TEMPS, 99) > 0);
+        assertEquals(0, metrics.getLatencyNanos(TempOperation.SORT, 99));
+
+        metrics.reset();
+        assertEquals(0, metrics.getCalls(TempOperation.AVERAGE));
+        assertEquals(0, metrics.getAppendedSamples());
+    }
+
+    @Test
+    public void testEveryOperationIsReportedOnce() {
+        TempSeriesMetrics metrics = new TempSeriesMetrics();
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[] {3.0, -5.0, 1.0});
+        seriesAnalysis.setListener(metrics);
+        seriesAnalysis.findTempsLessThen(0.0);
+        seriesAnalysis.findTempsLessThen(0.0, new double[2]);
+        seriesAnalysis.findTempsGreaterThen(0.0, new double[2]);
+        seriesAnalysis.enableRangeIndex();
+        seriesAnalysis.enableQuantileSketch();
+        seriesAnalysis.aggregate();
+        seriesAnalysis.ensureCapacity(100);
+        seriesAnalysis.trimToSize();
+
+        assertEquals(2, metrics.getCalls(TempOperation.LESS_THAN));
+        assertEquals(1, metrics.getCalls(TempOperation.GREATER_THAN));
+        assertEquals(0, metrics.getCalls(TempOperation.RANGE));
+        assertEquals(2, metrics.getCalls(TempOperation.INDEX));
+        assertEquals(1, metrics.getCalls(TempOperation.AGGREGATE));
+        assertEquals(2, metrics.getCalls(TempOperation.CAPACITY));
+    }
+
+    @Test
+    public void testDetachedListenerSeesNothing() {
+        TempSeriesMetrics metrics = new TempSeriesMetrics();
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[] {3.0, -5.0, 1.0});
+        seriesAnalysis.setListener(metrics);
+        seriesAnalysis.min();
+        seriesAnalysis.setListener(null);
+        seriesAnalysis.min();
+        seriesAnalysis.addTemps(4.0);
+
+        assertEquals(1, metrics.getCalls(TempOperation.MIN));
+        assertEquals(0, metrics.getCalls(TempOperation.ADD_TEMPS));
+    }
+
+    @Test
+    public void testCustomListenerReceivesEvents() {
+        List<TempOperation> operations = new ArrayList<>();
+        int[] appended = new int[2];
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+        seriesAnalysis.setListener(new TempSeriesListener() {
+            @Override
+            public void onOperation(TempOperation operation, long nanos) {
+                operations.add(operation);
+            }
+
+            @Override
+            public void onAppend(int added, int size) {
+                appended[0] += added;
+                appended[1] = size;
+            }
+        });
+        seriesAnalysis.addTemps(new double[] {1.0, 2.0, 3.0, 4.0}, 1, 3);
+        seriesAnalysis.percentile(50);
+        seriesAnalysis.reset();
+
+        assertEquals(List.of(TempOperation.ADD_TEMPS, TempOperation.PERCENTILE,
+                TempOperation.RESET), operations);
+        assertArrayEquals(new int[] {2, 2}, appended);
+    }
+
+    @Test
+    public void testRegistersWithPlatformMBeanServer() throws Exception {
+        TempSeriesMetrics metrics = new TempSeriesMetrics();
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[] {3.0, -5.0, 1.0});
+        seriesAnalysis.setListener(metrics);
+        seriesAnalysis.max();
+
+        ObjectName name = metrics.register("test series");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertTrue(server.isRegistered(name));
+            assertEquals(0L, server.getAttribute(name, "AppendedSamples"));
+            Object calls = server.getAttribute(name, "Calls");
+            assertNotNull(calls);
+            assertEquals(Long.valueOf(1), metrics.getCalls().get("MAX"));
+            Map<String, Long> p99 = metrics.getP99Nanos();
+            assertEquals(TempOperation.values().length, p99.size());
+        } finally {
+            metrics.unregister("test series");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ua.edu.ucu.apps.tempseries.TempSeriesStore;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+public class TempSeriesStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static double[] temps(int n, int seed) {
+        double[] temps = new double[n];
+        for (int i = 0; i < n; i++) {
+            temps[i] = 10.0 + Math.sin((i + seed) * 0.13) * 20.0;
+        }
+        return temps;
+    }
+
+    private static void assertSameSeries(double[] expected, TemperatureSeriesAnalysis actual) {
+        assertArrayEquals(expected, actual.getTsa(), 0.0);
+        TempSummaryStatistics stats = actual.summaryStatistics();
+        TempSummaryStatistics fresh = new TemperatureSeriesAnalysis(expected).summaryStatistics();
+        assertEquals(fresh.getAvgTemp(), stats.getAvgTemp(), 1e-9);
+        assertEquals(fresh.getDevTemp(), stats.getDevTemp(), 1e-9);
+        assertEquals(fresh.getMinTemp(), stats.getMinTemp(), 0.0);
+        assertEquals(fresh.getMaxTemp(), stats.getMaxTemp(), 0.0);
+    }
+
+    private static double[] concat(double[] first, double[] second) {
+        double[] result = new double[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    @Test
+    public void testReplaysLogAfterRestart() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        double[] temps = temps(200_000, 0);
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            assertEquals(150_000, store.addTemps(temps, 0, 150_000));
+            assertEquals(200_000, store.addTemps(temps, 150_000, 200_000));
+        }
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            assertSameSeries(temps, store.series());
+        }
+    }
+
+    @Test
+    public void testRestoresSnapshotAndLaterAppends() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        double[] before = temps(100_000, 1);
+        double[] after = temps(1000, 2);
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            store.addTemps(before);
+            store.series().enableQuantileSketch();
+            store.snapshot();
+            store.addTemps(after);
+        }
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            assertSameSeries(concat(before, after), store.series());
+            assertEquals(101_000, store.series().quantileSketch().getCount());
+            assertEquals(store.series().percentile(50), store.series().approximatePercentile(50), 2.0);
+        }
+    }
+
+    @Test
+    public void testSnapshotsPeriodically() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        double[] temps = temps(10_000, 3);
+        try (TempSeriesStore store = TempSeriesStore.open(directory, 100, 4096)) {
+            for (int i = 0; i < temps.length; i += 1000) {
+                store.addTemps(temps, i, i + 1000);
+            }
+        }
+        assertTrue(Files.exists(directory.resolve("snapshot.bin")));
+        assertTrue(Files.size(directory.resolve("log.bin")) < 4096 * Double.BYTES);
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            assertSameSeries(temps, store.series());
+        }
+    }
+
+    @Test
+    public void testCutsOffTornRecord() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        double[] temps = temps(300, 4);
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            store.addTemps(temps, 0, 200);
+            store.addTemps(temps, 200, 300);
+        }
+        Path log = directory.resolve("log.bin");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            assertArrayEquals(Arrays.copyOf(temps, 200), store.series().getTsa(), 0.0);
+            store.addTemps(1.5);
+        }
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            assertEquals(201, store.series().getTsa().length);
+            assertEquals(1.5, store.series().getTsa()[200], 0.0);
+        }
+    }
+
+    @Test
+    public void testSkipsLogAlreadyInSnapshot() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        double[] temps = temps(500, 5);
+        Path stale = folder.newFile().toPath();
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            store.addTemps(temps, 0, 400);
+            store.sync();
+            Files.copy(directory.resolve("log.bin"), stale, StandardCopyOption.REPLACE_EXISTING);
+            store.snapshot();
+        }
+        /* As if the process died after writing the snapshot but before replacing the log. */
+        Files.copy(stale, directory.resolve("log.bin"), StandardCopyOption.REPLACE_EXISTING);
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            store.addTemps(temps, 400, 500);
+        }
+        try (TempSeriesStore store = TempSeriesStore.open(directory)) {
+            assertSameSeries(temps, store.series());
+        }
+    }
+}
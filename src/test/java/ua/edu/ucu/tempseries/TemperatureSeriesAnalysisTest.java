@@ -1,13 +1,32 @@
 package ua.edu.ucu.tempseries;
 
 import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import ua.edu.ucu.apps.tempseries.QuantileSketch;
+import ua.edu.ucu.apps.tempseries.StorageMode;
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempSeriesMetrics;
 import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
 import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
 
 public class TemperatureSeriesAnalysisTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void test() {
         double[] temperatureSeries = {-1.0};
@@ -424,4 +443,720 @@ public class TemperatureSeriesAnalysisTest {
         assertEquals(4, countAfterFirstAdd);
         assertEquals(5, countAfterSecondAdd);
     }
+
+    @Test
+    public void testSummaryStatistics() {
+        double[] temperatureSeries = {1.0, 2.0, 3.0, 4.0, 5.0};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+
+        TempSummaryStatistics stats = seriesAnalysis.summaryStatistics();
+        assertEquals(3.0, stats.getAvgTemp(), 0.00001);
+        assertEquals(1.41421, stats.getDevTemp(), 0.00001);
+        assertEquals(1.0, stats.getMinTemp(), 0.00001);
+        assertEquals(5.0, stats.getMaxTemp(), 0.00001);
+    }
+
+    @Test
+    public void testSummaryStatisticsOnLargeSeries() {
+        double[] temperatureSeries = new double[10_001];
+        double sum = 0;
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.sin(i) * 30.0 + 10.0;
+            sum += temperatureSeries[i];
+        }
+        double avg = sum / temperatureSeries.length;
+        double sq = 0;
+        for (double temp : temperatureSeries) {
+            sq += (temp - avg) * (temp - avg);
+        }
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+
+        TempSummaryStatistics stats = seriesAnalysis.summaryStatistics();
+        assertEquals(avg, stats.getAvgTemp(), 0.00001);
+        assertEquals(Math.sqrt(sq / temperatureSeries.length), stats.getDevTemp(), 0.00001);
+        assertEquals(seriesAnalysis.min(), stats.getMinTemp(), 0.00001);
+        assertEquals(seriesAnalysis.max(), stats.getMaxTemp(), 0.00001);
+    }
+
+    @Test
+    public void testMaxWithAllNegativeTemperatures() {
+        double[] temperatureSeries = {-3.0, -1.5, -7.0};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+
+        assertEquals(-1.5, seriesAnalysis.max(), 0.00001);
+        assertEquals(-1.5, seriesAnalysis.summaryStatistics().getMaxTemp(), 0.00001);
+    }
+
+    @Test
+    public void testAverageAfterAddTempsIgnoresSpareCapacity() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{10.0, 20.0, 30.0});
+        seriesAnalysis.addTemps(40.0);
+
+        assertEquals(25.0, seriesAnalysis.average(), 0.00001);
+        assertArrayEquals(new double[]{10.0, 20.0, 30.0, 40.0}, seriesAnalysis.getTsa(), 0.00001);
+    }
+
+    @Test
+    public void testStatisticsFollowAddTemps() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{1.0, 2.0});
+        seriesAnalysis.addTemps(3.0, 4.0);
+        seriesAnalysis.addTemps(5.0);
+
+        TempSummaryStatistics stats = seriesAnalysis.summaryStatistics();
+        assertEquals(3.0, stats.getAvgTemp(), 0.00001);
+        assertEquals(1.41421, stats.getDevTemp(), 0.00001);
+        assertEquals(1.0, stats.getMinTemp(), 0.00001);
+        assertEquals(5.0, stats.getMaxTemp(), 0.00001);
+    }
+
+    @Test
+    public void testStatisticsAfterReset() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{-10.0, 40.0});
+        seriesAnalysis.reset();
+
+        assertThrows(IllegalArgumentException.class, seriesAnalysis::average);
+        seriesAnalysis.addTemps(2.0, 4.0);
+        assertEquals(3.0, seriesAnalysis.average(), 0.00001);
+        assertEquals(1.0, seriesAnalysis.deviation(), 0.00001);
+        assertEquals(2.0, seriesAnalysis.min(), 0.00001);
+        assertEquals(4.0, seriesAnalysis.max(), 0.00001);
+    }
+
+    @Test
+    public void testFindTempsInRangeReturnsAscendingValues() {
+        double[] temperatureSeries = {15.0, -5.0, 10.0, 0.0, 5.0, 5.0};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+
+        assertArrayEquals(new double[]{0.0, 5.0, 5.0, 10.0}, seriesAnalysis.findTempsInRange(0.0, 10.0), 0.00001);
+        assertArrayEquals(new double[]{}, seriesAnalysis.findTempsInRange(10.0, 0.0), 0.00001);
+    }
+
+    @Test
+    public void testRangeQueriesSeeAddTempsAndReset() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{3.0, 1.0});
+        assertArrayEquals(new double[]{1.0, 3.0}, seriesAnalysis.sortTemps(), 0.00001);
+
+        seriesAnalysis.addTemps(2.0);
+        assertArrayEquals(new double[]{1.0, 2.0}, seriesAnalysis.findTempsLessThen(2.0), 0.00001);
+        assertArrayEquals(new double[]{1.0, 2.0, 3.0}, seriesAnalysis.sortTemps(), 0.00001);
+
+        seriesAnalysis.reset();
+        assertArrayEquals(new double[]{}, seriesAnalysis.sortTemps(), 0.00001);
+    }
+
+    @Test
+    public void testSortTempsDoesNotExposeCachedView() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{2.0, 1.0});
+        seriesAnalysis.sortTemps()[0] = 100.0;
+
+        assertArrayEquals(new double[]{1.0, 2.0}, seriesAnalysis.sortTemps(), 0.00001);
+    }
+
+    @Test
+    public void testFindTempClosestToValue_TieRules() {
+        double[] temperatureSeries = {7.0, -3.0, 3.0, 7.0};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+
+        assertEquals(7.0, seriesAnalysis.findTempClosestToValue(5.0), 0.00001);
+        assertEquals(3.0, seriesAnalysis.findTempClosestToValue(0.0), 0.00001);
+        assertEquals(-3.0, seriesAnalysis.findTempClosestToValue(-100.0), 0.00001);
+        assertEquals(7.0, seriesAnalysis.findTempClosestToValue(100.0), 0.00001);
+
+        seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{-3.0, 3.0, 7.0});
+        assertEquals(3.0, seriesAnalysis.findTempClosestToValue(5.0), 0.00001);
+    }
+
+    @Test
+    public void testFindTempsClosestToValues() {
+        double[] temperatureSeries = {-5.0, -1.0, 1.0, 2.0, 3.0};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+
+        double[] expResult = {1.0, -5.0, 1.0, 3.0};
+        double[] actualResult = seriesAnalysis.findTempsClosestToValues(1.5, -3.0, 0.0, 42.0);
+        assertArrayEquals(expResult, actualResult, 0.00001);
+    }
+
+    @Test
+    public void testFindTempClosestToValueAfterAddTemps() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{10.0, 20.0});
+        assertEquals(10.0, seriesAnalysis.findTempClosestToValue(12.0), 0.00001);
+
+        seriesAnalysis.addTemps(12.5);
+        assertEquals(12.5, seriesAnalysis.findTempClosestToValue(12.0), 0.00001);
+    }
+
+    @Test
+    public void testFindTempsClosestToValuesWithEmptyArray() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis();
+
+        assertThrows(IllegalArgumentException.class, () -> seriesAnalysis.findTempsClosestToValues(1.0));
+    }
+
+    @Test
+    public void testParallelStatisticsMatchSequential() {
+        double[] temperatureSeries = new double[200_003];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.cos(i * 0.37) * 25.0 + 5.0;
+        }
+        TemperatureSeriesAnalysis sequential = new TemperatureSeriesAnalysis(temperatureSeries);
+        TemperatureSeriesAnalysis parallel = new TemperatureSeriesAnalysis(temperatureSeries, 1000);
+
+        assertEquals(sequential.average(), parallel.average(), 0.0);
+        assertEquals(sequential.deviation(), parallel.deviation(), 0.0);
+        assertEquals(sequential.min(), parallel.min(), 0.0);
+        assertEquals(sequential.max(), parallel.max(), 0.0);
+
+        sequential.addTemps(temperatureSeries);
+        parallel.addTemps(temperatureSeries);
+        assertEquals(sequential.average(), parallel.average(), 0.0);
+        assertEquals(sequential.deviation(), parallel.deviation(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelThresholdMustBePositive() {
+        new TemperatureSeriesAnalysis(new double[]{1.0}, 0);
+    }
+
+    @Test
+    public void testFloatStorage() {
+        double[] temperatureSeries = {1.0, 2.0, 3.0, 4.0, 5.0};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries, StorageMode.FLOAT);
+        seriesAnalysis.addTemps(-0.1);
+
+        assertEquals(-0.1, seriesAnalysis.min(), 0.00001);
+        assertEquals(5.0, seriesAnalysis.max(), 0.00001);
+        assertEquals(14.9 / 6, seriesAnalysis.average(), 0.00001);
+        assertArrayEquals(new double[]{-0.1, 1.0, 2.0}, seriesAnalysis.findTempsLessThen(2.0), 0.00001);
+        assertEquals(-0.1, seriesAnalysis.findTempClosestToZero(), 0.00001);
+    }
+
+    @Test
+    public void testCentiDegreeStorageRoundsToHundredths() {
+        double[] temperatureSeries = {21.456, -3.0, 0.004};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries, StorageMode.CENTI_DEGREES);
+
+        assertArrayEquals(new double[]{21.46, -3.0, 0.0}, seriesAnalysis.getTsa(), 0.0);
+        assertEquals(21.46, seriesAnalysis.max(), 0.0);
+        assertArrayEquals(new double[]{-3.0, 0.0, 21.46}, seriesAnalysis.sortTemps(), 0.0);
+    }
+
+    @Test
+    public void testCentiDegreeStorageRejectsOutOfRangeValues() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{10.0}, StorageMode.CENTI_DEGREES);
+
+        assertThrows(IllegalArgumentException.class, () -> seriesAnalysis.addTemps(20.0, 500.0));
+        assertArrayEquals(new double[]{10.0}, seriesAnalysis.getTsa(), 0.0);
+        assertEquals(10.0, seriesAnalysis.average(), 0.0);
+    }
+
+    @Test
+    public void testFloatStorageRejectsOutOfRangeValues() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{10.0}, StorageMode.FLOAT);
+
+        assertThrows(IllegalArgumentException.class, () -> seriesAnalysis.addTemps(20.0, 1e300));
+        assertArrayEquals(new double[]{10.0}, seriesAnalysis.getTsa(), 0.0);
+        seriesAnalysis.addTemps(Double.NEGATIVE_INFINITY);
+        assertEquals(Double.NEGATIVE_INFINITY, seriesAnalysis.min(), 0.0);
+    }
+
+    @Test
+    public void testCompactStorageQueriesMatchHeapSeries() {
+        double[] temperatureSeries = new double[40_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.round(Math.sin(i) * 4000.0) / 100.0;
+        }
+        double[] floats = new double[temperatureSeries.length];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = (float) temperatureSeries[i];
+        }
+        TemperatureSeriesAnalysis[][] pairs = {
+            {new TemperatureSeriesAnalysis(floats), new TemperatureSeriesAnalysis(temperatureSeries, StorageMode.FLOAT)},
+            {new TemperatureSeriesAnalysis(temperatureSeries),
+                new TemperatureSeriesAnalysis(temperatureSeries, StorageMode.CENTI_DEGREES)}};
+        for (TemperatureSeriesAnalysis[] pair : pairs) {
+            TemperatureSeriesAnalysis heap = pair[0];
+            TemperatureSeriesAnalysis compact = pair[1];
+            assertArrayEquals(heap.findTempsInRange(-1.5, 2.0), compact.findTempsInRange(-1.5, 2.0), 0.0);
+            assertArrayEquals(heap.findTempsGreaterThen(39.5), compact.findTempsGreaterThen(39.5), 0.0);
+            assertEquals(heap.findTempClosestToValue(7.777), compact.findTempClosestToValue(7.777), 0.0);
+            assertEquals(heap.findTempClosestToZero(), compact.findTempClosestToZero(), 0.0);
+            assertArrayEquals(heap.sortTemps(), compact.sortTemps(), 0.0);
+            double[] target = new double[4];
+            assertEquals(heap.findTempsLessThen(-39.9, target), compact.findTempsLessThen(-39.9, target));
+        }
+    }
+
+    @Test
+    public void testClosestToValuesMatchesEveryStorage() {
+        double[] temperatureSeries = new double[40_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.round(Math.sin(i) * 4000.0) / 100.0;
+        }
+        double[] targets = {-100.0, -7.777, 0.0, 12.345, 39.995, 100.0};
+        double[] expected = new TemperatureSeriesAnalysis(temperatureSeries).findTempsClosestToValues(targets);
+        for (StorageMode mode : StorageMode.values()) {
+            TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries, mode);
+            double[] actual = seriesAnalysis.findTempsClosestToValues(targets);
+            for (int i = 0; i < targets.length; i++) {
+                assertEquals(mode.name(), seriesAnalysis.findTempClosestToValue(targets[i]), actual[i], 0.0);
+                assertEquals(mode.name(), expected[i], actual[i], 0.02);
+            }
+        }
+    }
+
+    @Test
+    public void testCompactStorageMatchesDoubleStorageOnLargeSeries() {
+        double[] temperatureSeries = new double[50_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.round(Math.sin(i) * 4000.0) / 100.0;
+        }
+        TempSummaryStatistics expected = new TemperatureSeriesAnalysis(temperatureSeries).summaryStatistics();
+        TempSummaryStatistics actual = new TemperatureSeriesAnalysis(temperatureSeries, StorageMode.CENTI_DEGREES, 1000)
+                .summaryStatistics();
+
+        assertEquals(expected.getAvgTemp(), actual.getAvgTemp(), 0.00001);
+        assertEquals(expected.getDevTemp(), actual.getDevTemp(), 0.00001);
+        assertEquals(expected.getMinTemp(), actual.getMinTemp(), 0.00001);
+        assertEquals(expected.getMaxTemp(), actual.getMaxTemp(), 0.00001);
+    }
+
+    @Test
+    public void testCompressedStorageIsLossless() {
+        double[] temperatureSeries = new double[10_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            if (i < 3_000) {
+                temperatureSeries[i] = Math.round(20.0 + Math.sin(i * 0.01) * 500.0) / 100.0;
+            } else if (i < 6_000) {
+                temperatureSeries[i] = Math.sin(i) * 17.3;
+            } else {
+                temperatureSeries[i] = 12.5;
+            }
+        }
+        temperatureSeries[4_100] = Double.NaN;
+        temperatureSeries[4_101] = -0.0;
+        temperatureSeries[4_102] = Double.MAX_VALUE;
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(
+                Arrays.copyOf(temperatureSeries, 2_500), StorageMode.COMPRESSED);
+        seriesAnalysis.addTemps(temperatureSeries, 2_500, temperatureSeries.length);
+
+        double[] stored = seriesAnalysis.getTsa();
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(temperatureSeries[i]), Double.doubleToRawLongBits(stored[i]));
+        }
+    }
+
+    @Test
+    public void testCompressedStorageQueriesMatchHeapSeries() {
+        double[] temperatureSeries = new double[20_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.round(i * 0.3 + Math.sin(i) * 300.0) / 100.0;
+        }
+        TemperatureSeriesAnalysis heap = new TemperatureSeriesAnalysis(temperatureSeries);
+        TemperatureSeriesAnalysis compressed = new TemperatureSeriesAnalysis(temperatureSeries, StorageMode.COMPRESSED);
+
+        assertEquals(heap.deviation(), compressed.deviation(), 0.0);
+        assertArrayEquals(heap.findTempsInRange(10.0, 25.0), compressed.findTempsInRange(10.0, 25.0), 0.0);
+        assertArrayEquals(heap.findTempsGreaterThen(55.0), compressed.findTempsGreaterThen(55.0), 0.0);
+        assertEquals(heap.findTempClosestToValue(33.333), compressed.findTempClosestToValue(33.333), 0.0);
+        assertEquals(heap.findTempClosestToZero(), compressed.findTempClosestToZero(), 0.0);
+        assertArrayEquals(heap.sortTemps(), compressed.sortTemps(), 0.0);
+        TempSummaryStatistics expected = heap.summaryStatistics(1_000, 17_500);
+        TempSummaryStatistics actual = compressed.summaryStatistics(1_000, 17_500);
+        assertEquals(expected.getAvgTemp(), actual.getAvgTemp(), 1e-9);
+        assertEquals(expected.getDevTemp(), actual.getDevTemp(), 1e-9);
+        assertEquals(expected.getMinTemp(), actual.getMinTemp(), 0.0);
+        assertEquals(expected.getMaxTemp(), actual.getMaxTemp(), 0.0);
+
+        compressed.reset();
+        compressed.addTemps(1.5, -2.5);
+        assertArrayEquals(new double[]{1.5, -2.5}, compressed.getTsa(), 0.0);
+    }
+
+    @Test
+    public void testParallelCompressedStatisticsMatchSequential() {
+        double[] temperatureSeries = new double[2_000_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.round(Math.sin(i * 0.37) * 9_000.0 + i * 0.01) / 100.0;
+        }
+        TemperatureSeriesAnalysis sequential = new TemperatureSeriesAnalysis(
+                new double[] {1.0, 2.0, 3.0}, StorageMode.COMPRESSED);
+        sequential.addTemps(temperatureSeries);
+        for (int run = 0; run < 5; run++) {
+            TemperatureSeriesAnalysis parallel = new TemperatureSeriesAnalysis(
+                    new double[] {1.0, 2.0, 3.0}, StorageMode.COMPRESSED, 1);
+            parallel.addTemps(temperatureSeries);
+
+            assertEquals(sequential.average(), parallel.average(), 0.0);
+            assertEquals(sequential.deviation(), parallel.deviation(), 0.0);
+            assertEquals(sequential.min(), parallel.min(), 0.0);
+            assertEquals(sequential.max(), parallel.max(), 0.0);
+        }
+    }
+
+    @Test
+    public void testChunkedStorageQueriesMatchHeapSeries() {
+        double[] temperatureSeries = new double[300_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.sin(i * 0.001) * 40.0 + (i % 7) * 0.25;
+        }
+        TemperatureSeriesAnalysis heap = new TemperatureSeriesAnalysis(temperatureSeries);
+        TemperatureSeriesAnalysis chunked = new TemperatureSeriesAnalysis(
+                Arrays.copyOf(temperatureSeries, 70_000), StorageMode.CHUNKED);
+        chunked.addTemps(temperatureSeries, 70_000, temperatureSeries.length);
+
+        assertArrayEquals(temperatureSeries, chunked.getTsa(), 0.0);
+        assertEquals(heap.average(), chunked.average(), 1e-9);
+        assertEquals(heap.deviation(), chunked.deviation(), 1e-9);
+        assertArrayEquals(heap.findTempsInRange(10.0, 12.0), chunked.findTempsInRange(10.0, 12.0), 0.0);
+        assertEquals(heap.findTempClosestToValue(33.333), chunked.findTempClosestToValue(33.333), 0.0);
+        assertEquals(heap.percentile(90), chunked.percentile(90), 0.0);
+        TempSummaryStatistics expected = heap.summaryStatistics(65_000, 140_000);
+        TempSummaryStatistics actual = chunked.summaryStatistics(65_000, 140_000);
+        assertEquals(expected.getAvgTemp(), actual.getAvgTemp(), 1e-9);
+        assertEquals(expected.getMinTemp(), actual.getMinTemp(), 0.0);
+        assertEquals(expected.getMaxTemp(), actual.getMaxTemp(), 0.0);
+        assertEquals(heap.query().inRange(-5.0, 5.0).count(), chunked.query().inRange(-5.0, 5.0).count());
+    }
+
+    @Test
+    public void testChunkedStorageNeverCopiesOnGrowth() {
+        TempSeriesMetrics metrics = new TempSeriesMetrics();
+        TemperatureSeriesAnalysis chunked = new TemperatureSeriesAnalysis(null, StorageMode.CHUNKED);
+        chunked.setListener(metrics);
+        double[] batch = new double[10_000];
+        Arrays.fill(batch, 1.5);
+        for (int i = 0; i < 50; i++) {
+            chunked.addTemps(batch);
+        }
+        assertEquals(0, metrics.getRegrowths());
+        assertEquals(500_000, chunked.getTsa().length);
+
+        chunked.trimToSize();
+        chunked.addTemps(2.5);
+        assertEquals(1, metrics.getRegrowths());
+        assertEquals(2.5, chunked.max(), 0.0);
+        assertEquals(500_001, chunked.getTsa().length);
+    }
+
+    @Test
+    public void testChunkedStorageGrowsAgainAfterTrim() {
+        TemperatureSeriesAnalysis chunked = new TemperatureSeriesAnalysis(null, StorageMode.CHUNKED);
+        chunked.trimToSize();
+        chunked.addTemps(new double[1 << 14]);
+        chunked.trimToSize();
+        chunked.addTemps(4.0, 5.0);
+        chunked.trimToSize();
+        chunked.addTemps(new double[3 << 14]);
+
+        assertEquals((4 << 14) + 2, chunked.getTsa().length);
+        assertEquals(5.0, chunked.max(), 0.0);
+        assertEquals(9.0, chunked.sortTemps()[(4 << 14) + 1] + chunked.sortTemps()[(4 << 14)], 0.0);
+    }
+
+    @Test
+    public void testEnsureCapacityAvoidsRegrowth() {
+        for (StorageMode mode : new StorageMode[] {StorageMode.DOUBLE, StorageMode.FLOAT,
+                StorageMode.CENTI_DEGREES, StorageMode.CHUNKED}) {
+            TempSeriesMetrics metrics = new TempSeriesMetrics();
+            TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(null, mode);
+            seriesAnalysis.ensureCapacity(100_000);
+            seriesAnalysis.setListener(metrics);
+            for (int i = 0; i < 1_000; i++) {
+                seriesAnalysis.addTemps(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0);
+            }
+            assertEquals(mode.name(), 0, metrics.getRegrowths());
+
+            seriesAnalysis.trimToSize();
+            assertEquals(5.5, seriesAnalysis.average(), 1e-9);
+            assertEquals(10_000, seriesAnalysis.getTsa().length);
+            seriesAnalysis.addTemps(11.0);
+            assertEquals(11.0, seriesAnalysis.max(), 0.0);
+        }
+    }
+
+    @Test
+    public void testMappedSeriesPersistsAppends() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("series.bin");
+        try (TemperatureSeriesAnalysis seriesAnalysis = TemperatureSeriesAnalysis.mapped(file)) {
+            assertEquals(3, seriesAnalysis.addTemps(3.0, -1.0, 2.5));
+            assertEquals(5, seriesAnalysis.addTemps(0.0, 4.2));
+            assertEquals(-1.0, seriesAnalysis.min(), 0.00001);
+        }
+
+        assertEquals(5 * Double.BYTES, Files.size(file));
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(3.0, bytes.getDouble(0), 0.0);
+        assertEquals(4.2, bytes.getDouble(4 * Double.BYTES), 0.0);
+
+        try (TemperatureSeriesAnalysis seriesAnalysis = TemperatureSeriesAnalysis.mapped(file)) {
+            assertArrayEquals(new double[]{3.0, -1.0, 2.5, 0.0, 4.2}, seriesAnalysis.getTsa(), 0.0);
+            assertEquals(1.74, seriesAnalysis.average(), 0.00001);
+            assertEquals(4.2, seriesAnalysis.max(), 0.00001);
+        }
+    }
+
+    @Test
+    public void testMappedSeriesLeftOpenKeepsOnlyItsSamples() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("open.bin");
+        Path crashed = folder.getRoot().toPath().resolve("crashed.bin");
+        try (TemperatureSeriesAnalysis seriesAnalysis = TemperatureSeriesAnalysis.mapped(file)) {
+            seriesAnalysis.addTemps(3.0, -1.0, 2.5);
+            seriesAnalysis.addTemps(new double[10_000]);
+            seriesAnalysis.addTemps(7.0);
+            assertTrue(Files.size(file) > 10_004 * Double.BYTES);
+            Files.copy(file, crashed);
+        }
+
+        try (TemperatureSeriesAnalysis seriesAnalysis = TemperatureSeriesAnalysis.mapped(crashed)) {
+            assertEquals(10_004, seriesAnalysis.getTsa().length);
+            assertEquals(7.0, seriesAnalysis.max(), 0.0);
+            assertEquals(11.5 / 10_004, seriesAnalysis.average(), 1e-12);
+            seriesAnalysis.addTemps(1.0);
+        }
+        assertEquals(10_005 * Double.BYTES, Files.size(crashed));
+    }
+
+    @Test
+    public void testMappedSeriesTrimsReservedRoom() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("trimmed.bin");
+        try (TemperatureSeriesAnalysis seriesAnalysis = TemperatureSeriesAnalysis.mapped(file)) {
+            seriesAnalysis.ensureCapacity(100_000);
+            seriesAnalysis.addTemps(3.0, -1.0, 2.5);
+            assertTrue(Files.size(file) > 100_000 * Double.BYTES);
+            seriesAnalysis.trimToSize();
+            assertEquals(5 * Double.BYTES, Files.size(file));
+            assertEquals(2.5, seriesAnalysis.findTempClosestToValue(2.0), 0.0);
+            seriesAnalysis.addTemps(new double[20_000]);
+            seriesAnalysis.addTemps(7.0);
+        }
+        try (TemperatureSeriesAnalysis seriesAnalysis = TemperatureSeriesAnalysis.mapped(file)) {
+            assertEquals(20_004, seriesAnalysis.getTsa().length);
+            assertEquals(11.5 / 20_004, seriesAnalysis.average(), 1e-12);
+        }
+    }
+
+    @Test
+    public void testMappedSeriesCountsOnlyRemapsAsRegrowths() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("regrowths.bin");
+        TempSeriesMetrics metrics = new TempSeriesMetrics();
+        try (TemperatureSeriesAnalysis seriesAnalysis = TemperatureSeriesAnalysis.mapped(file)) {
+            seriesAnalysis.setListener(metrics);
+            seriesAnalysis.addTemps(1.0, 2.0);
+            assertEquals(0, metrics.getRegrowths());
+            seriesAnalysis.addTemps(new double[20_000]);
+            assertEquals(1, metrics.getRegrowths());
+        }
+    }
+
+    @Test
+    public void testMappedSeriesQueriesMatchHeapSeries() throws IOException {
+        double[] temperatureSeries = new double[40_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.round(Math.sin(i) * 3000.0) / 100.0;
+        }
+        TemperatureSeriesAnalysis heap = new TemperatureSeriesAnalysis(temperatureSeries);
+        Path file = folder.getRoot().toPath().resolve("large.bin");
+        try (TemperatureSeriesAnalysis mapped = TemperatureSeriesAnalysis.mapped(file)) {
+            mapped.addTemps(temperatureSeries);
+
+            assertEquals(heap.deviation(), mapped.deviation(), 0.0);
+            assertArrayEquals(heap.findTempsInRange(-1.5, 2.0), mapped.findTempsInRange(-1.5, 2.0), 0.0);
+            assertEquals(heap.findTempClosestToValue(7.777), mapped.findTempClosestToValue(7.777), 0.0);
+            assertEquals(heap.findTempClosestToValue(15.0), mapped.findTempClosestToValue(15.0), 0.0);
+            assertEquals(heap.findTempClosestToZero(), mapped.findTempClosestToZero(), 0.0);
+            assertArrayEquals(heap.sortTemps(), mapped.sortTemps(), 0.0);
+        }
+    }
+
+    @Test
+    public void testMappedSeriesReset() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("reset.bin");
+        try (TemperatureSeriesAnalysis seriesAnalysis = TemperatureSeriesAnalysis.mapped(file)) {
+            seriesAnalysis.addTemps(1.0, 2.0);
+            seriesAnalysis.reset();
+            assertThrows(IllegalArgumentException.class, seriesAnalysis::average);
+            seriesAnalysis.addTemps(5.0);
+            assertEquals(5.0, seriesAnalysis.average(), 0.0);
+        }
+        assertEquals(Double.BYTES, Files.size(file));
+    }
+
+    @Test
+    public void testQueriesIntoCallerBuffers() {
+        double[] temperatureSeries = {15.0, -5.0, 10.0, 0.0, 5.0};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+        double[] target = new double[8];
+
+        assertEquals(3, seriesAnalysis.findTempsInRange(0.0, 10.0, target));
+        assertArrayEquals(new double[]{0.0, 5.0, 10.0}, Arrays.copyOf(target, 3), 0.0);
+        assertEquals(2, seriesAnalysis.findTempsLessThen(0.0, target));
+        assertEquals(3, seriesAnalysis.findTempsGreaterThen(5.0, target));
+        assertEquals(5, seriesAnalysis.sortTemps(target));
+        assertArrayEquals(new double[]{-5.0, 0.0, 5.0, 10.0, 15.0}, Arrays.copyOf(target, 5), 0.0);
+        assertEquals(5, seriesAnalysis.getTsa(target));
+        assertArrayEquals(temperatureSeries, Arrays.copyOf(target, 5), 0.0);
+
+        double[] small = new double[2];
+        assertEquals(4, seriesAnalysis.findTempsGreaterThen(0.0, small));
+        assertArrayEquals(new double[]{0.0, 5.0}, small, 0.0);
+
+        DoubleBuffer buffer = DoubleBuffer.allocate(2);
+        assertEquals(3, seriesAnalysis.findTempsInRange(-5.0, 5.0, buffer));
+        assertEquals(0, buffer.remaining());
+        assertEquals(-5.0, buffer.get(0), 0.0);
+    }
+
+    @Test
+    public void testSummaryStatisticsIntoReusableHolder() {
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(new double[]{1.0, 2.0, 3.0, 4.0, 5.0});
+        TempAccumulator holder = new TempAccumulator();
+
+        assertSame(holder, seriesAnalysis.summaryStatistics(holder));
+        assertEquals(5, holder.getCount());
+        assertEquals(3.0, holder.getAvgTemp(), 0.00001);
+        assertEquals(1.41421, holder.getDevTemp(), 0.00001);
+        assertEquals(1.0, holder.getMinTemp(), 0.0);
+        assertEquals(5.0, holder.getMaxTemp(), 0.0);
+
+        seriesAnalysis.addTemps(11.0);
+        seriesAnalysis.summaryStatistics(holder);
+        assertEquals(6, holder.getCount());
+        assertEquals(11.0, holder.getMaxTemp(), 0.0);
+    }
+
+    @Test
+    public void testSteadyStateQueriesDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        double[] temperatureSeries = new double[10_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = Math.sin(i) * 30.0;
+        }
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+        TempAccumulator holder = new TempAccumulator();
+        double[] target = new double[temperatureSeries.length];
+        DoubleBuffer buffer = DoubleBuffer.allocate(temperatureSeries.length);
+        int calls = 5_000;
+        for (int i = 0; i < calls; i++) {
+            runBufferedQueries(seriesAnalysis, holder, target, buffer);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < calls; i++) {
+            runBufferedQueries(seriesAnalysis, holder, target, buffer);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue("allocated " + allocated + " bytes", allocated < 16L * calls);
+    }
+
+    @Test
+    public void testSubRangeSummaryStatistics() {
+        double[] temperatureSeries = new double[5_000];
+        for (int i = 0; i < temperatureSeries.length; i++) {
+            temperatureSeries[i] = 20.0 + Math.sin(i * 0.1) * 15.0;
+        }
+        TemperatureSeriesAnalysis plain = new TemperatureSeriesAnalysis(Arrays.copyOf(temperatureSeries, 3_000));
+        TemperatureSeriesAnalysis indexed = new TemperatureSeriesAnalysis(Arrays.copyOf(temperatureSeries, 3_000));
+        indexed.enableRangeIndex();
+        plain.addTemps(temperatureSeries, 3_000, temperatureSeries.length);
+        indexed.addTemps(temperatureSeries, 3_000, temperatureSeries.length);
+
+        int[][] ranges = {{0, 1}, {0, 5_000}, {17, 2_999}, {2_990, 3_010}, {4_321, 4_999}};
+        for (int[] range : ranges) {
+            TempSummaryStatistics expected = new TemperatureSeriesAnalysis(
+                    Arrays.copyOfRange(temperatureSeries, range[0], range[1])).summaryStatistics();
+            for (TemperatureSeriesAnalysis analysis : new TemperatureSeriesAnalysis[]{plain, indexed}) {
+                TempSummaryStatistics actual = analysis.summaryStatistics(range[0], range[1]);
+                assertEquals(expected.getAvgTemp(), actual.getAvgTemp(), 1e-9);
+                assertEquals(expected.getDevTemp(), actual.getDevTemp(), 1e-6);
+                assertEquals(expected.getMinTemp(), actual.getMinTemp(), 0.0);
+                assertEquals(expected.getMaxTemp(), actual.getMaxTemp(), 0.0);
+            }
+        }
+
+        indexed.reset();
+        indexed.addTemps(-3.0, 7.0);
+        assertEquals(2.0, indexed.summaryStatistics(0, 2).getAvgTemp(), 0.00001);
+        assertEquals(-3.0, indexed.summaryStatistics(0, 1).getMaxTemp(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubRangeSummaryStatisticsOfEmptyRange() {
+        new TemperatureSeriesAnalysis(new double[]{1.0, 2.0}).summaryStatistics(1, 1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSubRangeSummaryStatisticsOutOfBounds() {
+        new TemperatureSeriesAnalysis(new double[]{1.0, 2.0}).summaryStatistics(1, 3);
+    }
+
+    @Test
+    public void testPercentiles() {
+        double[] temperatureSeries = {7.0, -3.0, 7.0, 1.0, 10.0, 4.0};
+        TemperatureSeriesAnalysis seriesAnalysis = new TemperatureSeriesAnalysis(temperatureSeries);
+        double[] expected = {-3.0, 1.75, 5.5, 7.0, 10.0};
+        double[] percentiles = {0, 25, 50, 75, 100};
+
+        assertArrayEquals(expected, seriesAnalysis.percentiles(percentiles), 0.00001);
+        assertEquals(5.5, seriesAnalysis.percentile(50), 0.00001);
+        seriesAnalysis.sortTemps();
+        assertArrayEquals(expected, seriesAnalysis.percentiles(percentiles), 0.00001);
+        assertArrayEquals(temperatureSeries, seriesAnalysis.getTsa(), 0.0);
+        assertEquals(4.0, new TemperatureSeriesAnalysis(new double[]{4.0, 4.0, 4.0}).percentile(37), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new TemperatureSeriesAnalysis(new double[]{1.0}).percentile(100.5);
+    }
+
+    @Test
+    public void testApproximatePercentiles() {
+        int n = 1_000_000;
+        double[] temperatureSeries = new double[n];
+        for (int i = 0; i < n; i++) {
+            temperatureSeries[i] = (i * 7919L % n) / 1000.0;
+        }
+        TemperatureSeriesAnalysis first = new TemperatureSeriesAnalysis(Arrays.copyOf(temperatureSeries, n / 2));
+        first.enableQuantileSketch();
+        TemperatureSeriesAnalysis second = new TemperatureSeriesAnalysis();
+        second.enableQuantileSketch();
+        second.addTemps(temperatureSeries, n / 2, n);
+
+        for (double p : new double[]{1, 50, 95, 99}) {
+            assertEquals(p * 10.0, first.approximatePercentile(p), 10.0);
+        }
+        QuantileSketch merged = new QuantileSketch();
+        merged.merge(first.quantileSketch());
+        merged.merge(second.quantileSketch());
+        assertEquals(n, merged.getCount());
+        for (double p : new double[]{1, 50, 95, 99}) {
+            assertEquals(p * 10.0, merged.percentile(p), 10.0);
+        }
+        assertEquals(0.0, merged.percentile(0), 0.0);
+        assertEquals(999.999, merged.percentile(100), 0.0);
+
+        first.reset();
+        first.addTemps(5.0);
+        assertEquals(5.0, first.approximatePercentile(50), 0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testApproximatePercentileWithoutSketch() {
+        new TemperatureSeriesAnalysis(new double[]{1.0}).approximatePercentile(50);
+    }
+
+    private static void runBufferedQueries(TemperatureSeriesAnalysis seriesAnalysis, TempAccumulator holder,
+            double[] target, DoubleBuffer buffer) {
+        seriesAnalysis.findTempsInRange(-5.0, 5.0, target);
+        seriesAnalysis.findTempsLessThen(0.0, target);
+        seriesAnalysis.findTempsGreaterThen(0.0, target);
+        buffer.clear();
+        seriesAnalysis.findTempsInRange(-5.0, 5.0, buffer);
+        seriesAnalysis.sortTemps(target);
+        seriesAnalysis.getTsa(target);
+        seriesAnalysis.findTempClosestToValue(3.3);
+        seriesAnalysis.summaryStatistics(holder);
+    }
 }
@@ -0,0 +1,120 @@
+package ua.edu.ucu.tempseries;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+import ua.edu.ucu.apps.tempseries.TimestampedTemperatureSeries;
+
+public class TimestampedTemperatureSeriesTest {
+
+    @Test
+    public void testSmallSeries() {
+        TimestampedTemperatureSeries series = new TimestampedTemperatureSeries();
+        series.addTemps(new long[]{10, 20, 20, 30}, new double[]{1.0, -2.0, 5.0, 3.0});
+        series.add(40, 7.0);
+
+        assertEquals(5, series.size());
+        assertEquals(2.0, series.average(20, 30), 0.00001);
+        assertEquals(-2.0, series.min(15, 35), 0.0);
+        assertEquals(7.0, series.max(0, 100), 0.0);
+        assertEquals(0.0, series.deviation(40, 40), 0.0);
+        assertArrayEquals(new double[]{5.0, 3.0},
+                series.findTempsInRange(20, 40, 2.0, 6.0), 0.0);
+        assertArrayEquals(new double[]{-2.0, 5.0},
+                series.slice(20, 20).sortTemps(), 0.0);
+    }
+
+    @Test
+    public void testQueriesMatchSlicedArrays() {
+        Random random = new Random(3);
+        int n = 50_000;
+        long[] timestamps = new long[n];
+        double[] temps = new double[n];
+        for (int i = 0; i < n; i++) {
+            timestamps[i] = 2L * i + random.nextInt(2);
+            temps[i] = random.nextGaussian() * 15;
+        }
+        TimestampedTemperatureSeries series = new TimestampedTemperatureSeries();
+        series.addTemps(Arrays.copyOf(timestamps, 1234), Arrays.copyOf(temps, 1234));
+        series.addTemps(Arrays.copyOfRange(timestamps, 1234, n),
+                Arrays.copyOfRange(temps, 1234, n));
+
+        for (int q = 0; q < 50; q++) {
+            int first = random.nextInt(n);
+            int last = first + random.nextInt(n - first);
+            double[] expected = Arrays.copyOfRange(temps, first, last + 1);
+            long from = timestamps[first];
+            long to = timestamps[last];
+            TempSummaryStatistics stats = new TemperatureSeriesAnalysis(expected)
+                    .summaryStatistics();
+            TempSummaryStatistics actual = series.summaryStatistics(from, to);
+            assertEquals(stats.getAvgTemp(), actual.getAvgTemp(), 1e-9);
+            assertEquals(stats.getDevTemp(), actual.getDevTemp(), 1e-9);
+            assertEquals(stats.getMinTemp(), actual.getMinTemp(), 0.0);
+            assertEquals(stats.getMaxTemp(), actual.getMaxTemp(), 0.0);
+
+            double[] inRange = Arrays.stream(expected)
+                    .filter(t -> t >= -5.0 && t <= 20.0).toArray();
+            assertArrayEquals(inRange, series.findTempsInRange(from, to, -5.0, 20.0), 0.0);
+        }
+    }
+
+    @Test
+    public void testSingleSamplesMatchBatches() {
+        Random random = new Random(5);
+        int n = 10_000;
+        long[] timestamps = new long[n];
+        double[] temps = new double[n];
+        for (int i = 0; i < n; i++) {
+            timestamps[i] = 3L * i;
+            temps[i] = random.nextGaussian() * 15;
+        }
+        TimestampedTemperatureSeries batched = new TimestampedTemperatureSeries();
+        batched.addTemps(timestamps, temps);
+        TimestampedTemperatureSeries single = new TimestampedTemperatureSeries();
+        for (int i = 0; i < n; i++) {
+            single.add(timestamps[i], temps[i]);
+        }
+
+        assertEquals(n, single.size());
+        for (long[] interval : new long[][] {{0, 3L * n}, {5_000, 20_000}, {12_288, 12_288}}) {
+            TempSummaryStatistics expected = batched.summaryStatistics(interval[0], interval[1]);
+            TempSummaryStatistics actual = single.summaryStatistics(interval[0], interval[1]);
+            assertEquals(expected.getAvgTemp(), actual.getAvgTemp(), 1e-9);
+            assertEquals(expected.getDevTemp(), actual.getDevTemp(), 1e-9);
+            assertEquals(expected.getMinTemp(), actual.getMinTemp(), 0.0);
+            assertEquals(expected.getMaxTemp(), actual.getMaxTemp(), 0.0);
+        }
+        try {
+            single.add(0, 1.0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(n, single.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyInterval() {
+        TimestampedTemperatureSeries series = new TimestampedTemperatureSeries();
+        series.add(5, 1.0);
+        series.average(6, 10);
+    }
+
+    @Test
+    public void testTimestampsGoingBackwards() {
+        TimestampedTemperatureSeries series = new TimestampedTemperatureSeries();
+        series.add(5, 1.0);
+        try {
+            series.addTemps(new long[]{6, 4}, new double[]{2.0, 3.0});
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(1, series.size());
+        }
+    }
+}
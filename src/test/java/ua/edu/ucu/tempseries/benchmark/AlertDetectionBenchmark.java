@@ -0,0 +1,87 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ua.edu.ucu.apps.tempseries.TempAlertRule;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Appending a batch and finding the out-of-range readings, either by
+ * polling findTempsGreaterThen and findTempsLessThen after the append or
+ * with threshold, rate-of-change and z-score rules checked by addTemps.
+ * Polling rescans the whole history; the rules only look at the batch.
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=AlertDetection
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlertDetectionBenchmark {
+    private static final double HIGH = 49.9;
+    private static final double LOW = -49.9;
+    private static final int MAX_GROWTH = 1 << 22;
+
+    @Param({"10000", "1000000"})
+    private int history;
+
+    private double[] initial;
+    private double[] batch;
+    private TemperatureSeriesAnalysis polled;
+    private TemperatureSeriesAnalysis streamed;
+    private Blackhole sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        sink = blackhole;
+        initial = Distribution.UNIFORM.generate(history);
+        batch = Distribution.UNIFORM.generate(64);
+        polled = new TemperatureSeriesAnalysis(initial);
+        streamed = new TemperatureSeriesAnalysis(initial);
+        streamed.addAlertRule(TempAlertRule.above(HIGH), this::alert);
+        streamed.addAlertRule(TempAlertRule.below(LOW), this::alert);
+        streamed.addAlertRule(TempAlertRule.rateOfChange(99.0), this::alert);
+        streamed.addAlertRule(TempAlertRule.zScore(3.0), this::alert);
+    }
+
+    private void alert(TempAlertRule rule, int index, double value,
+            double measure) {
+        sink.consume(index);
+    }
+
+    @Benchmark
+    public int poll() {
+        int size = append(polled);
+        return size + polled.findTempsGreaterThen(HIGH).length
+                + polled.findTempsLessThen(LOW).length;
+    }
+
+    @Benchmark
+    public int stream() {
+        return append(streamed);
+    }
+
+    private int append(TemperatureSeriesAnalysis series) {
+        int size = series.addTemps(batch);
+        if (size > history + MAX_GROWTH) {
+            series.reset();
+            series.addTemps(initial);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,82 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Allocating queries against their caller-buffer overloads. Meant to be run
+ * with the GC profiler, where gc.alloc.rate.norm of the buffered variants
+ * should be 0 B/op:
+ * mvn -P benchmark -DskipTests verify -Djmh.args="BufferedQuery -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferedQueryBenchmark {
+    private static final double RANGE_LOW = -5.0;
+    private static final double RANGE_HIGH = 5.0;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private TemperatureSeriesAnalysis analysis;
+    private double[] target;
+    private TempAccumulator holder;
+
+    @Setup
+    public void setUp() {
+        analysis = new TemperatureSeriesAnalysis(
+                Distribution.UNIFORM.generate(size));
+        analysis.sortTemps();
+        target = new double[size];
+        holder = new TempAccumulator();
+    }
+
+    @Benchmark
+    public double[] rangeAllocating() {
+        return analysis.findTempsInRange(RANGE_LOW, RANGE_HIGH);
+    }
+
+    @Benchmark
+    public int rangeBuffered() {
+        return analysis.findTempsInRange(RANGE_LOW, RANGE_HIGH, target);
+    }
+
+    @Benchmark
+    public double[] getTsaAllocating() {
+        return analysis.getTsa();
+    }
+
+    @Benchmark
+    public int getTsaBuffered() {
+        return analysis.getTsa(target);
+    }
+
+    @Benchmark
+    public TempSummaryStatistics summaryAllocating() {
+        return analysis.summaryStatistics();
+    }
+
+    @Benchmark
+    public TempAccumulator summaryBuffered() {
+        return analysis.summaryStatistics(holder);
+    }
+}
@@ -0,0 +1,46 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.ConcurrentTemperatureSeries;
+
+/**
+ * Ingest throughput of ConcurrentTemperatureSeries. Compare the score for
+ * different writer counts, e.g.
+ * mvn -P benchmark -DskipTests verify -Djmh.args="ConcurrentIngest -t 4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ConcurrentIngestBenchmark {
+    private static final int BATCH = 64;
+
+    private ConcurrentTemperatureSeries series;
+    private double[] batch;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        series = new ConcurrentTemperatureSeries();
+        batch = Distribution.UNIFORM.generate(BATCH);
+    }
+
+    @Benchmark
+    public void addTemps() {
+        series.addTemps(batch);
+    }
+}
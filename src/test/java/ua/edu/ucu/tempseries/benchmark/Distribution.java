@@ -0,0 +1,49 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public enum Distribution {
+    UNIFORM {
+        @Override
+        double[] generate(int size, Random random) {
+            double[] temps = new double[size];
+            for (int i = 0; i < size; i++) {
+                temps[i] = random.nextDouble() * 100.0 - 50.0;
+            }
+            return temps;
+        }
+    },
+    SORTED {
+        @Override
+        double[] generate(int size, Random random) {
+            double[] temps = UNIFORM.generate(size, random);
+            Arrays.sort(temps);
+            return temps;
+        }
+    },
+    ALL_EQUAL {
+        @Override
+        double[] generate(int size, Random random) {
+            double[] temps = new double[size];
+            Arrays.fill(temps, 21.5);
+            return temps;
+        }
+    },
+    HEAVY_DUPLICATES {
+        @Override
+        double[] generate(int size, Random random) {
+            double[] temps = new double[size];
+            for (int i = 0; i < size; i++) {
+                temps[i] = random.nextInt(16) * 0.5;
+            }
+            return temps;
+        }
+    };
+
+    public double[] generate(int size) {
+        return generate(size, new Random(42));
+    }
+
+    abstract double[] generate(int size, Random random);
+}
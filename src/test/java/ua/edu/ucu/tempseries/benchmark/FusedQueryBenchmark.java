@@ -0,0 +1,63 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Range filter followed by summary statistics: materialized through
+ * findTempsInRange and a second series, against the fused TempQuery pass.
+ * Worth running with -prof gc.
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=FusedQuery
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedQueryBenchmark {
+    private static final double RANGE_LOW = -10.0;
+    private static final double RANGE_HIGH = 10.0;
+
+    @Param({"1000", "1000000", "10000000"})
+    private int size;
+
+    private TemperatureSeriesAnalysis analysis;
+    private TempAccumulator holder;
+
+    @Setup
+    public void setUp() {
+        analysis = new TemperatureSeriesAnalysis(
+                Distribution.UNIFORM.generate(size));
+        holder = new TempAccumulator();
+    }
+
+    @Benchmark
+    public TempSummaryStatistics materialized() {
+        return new TemperatureSeriesAnalysis(
+                analysis.findTempsInRange(RANGE_LOW, RANGE_HIGH))
+                .summaryStatistics();
+    }
+
+    @Benchmark
+    public TempAccumulator fused() {
+        return analysis.query().inRange(RANGE_LOW, RANGE_HIGH)
+                .summaryStatistics(holder);
+    }
+}
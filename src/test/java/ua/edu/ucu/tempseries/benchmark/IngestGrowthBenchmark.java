@@ -0,0 +1,74 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.StorageMode;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Latency distribution of appending a batch while the series grows to
+ * MAX_SAMPLES and starts over: a growing array, the same array reserved up
+ * front with ensureCapacity, and chunked storage. The tail percentiles
+ * show the regrowth copies.
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=IngestGrowth
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class IngestGrowthBenchmark {
+    private static final int MAX_SAMPLES = 1 << 25;
+    private static final int BATCH = 4096;
+
+    @Param({"DOUBLE", "DOUBLE_PRESIZED", "CHUNKED"})
+    private String storage;
+
+    private TemperatureSeriesAnalysis series;
+    private double[] batch;
+    private int size;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        batch = Distribution.UNIFORM.generate(BATCH);
+        series = null;
+        System.gc();
+        startSeries();
+    }
+
+    @Benchmark
+    public int addBatch() {
+        if (size + BATCH > MAX_SAMPLES) {
+            startSeries();
+        }
+        size = series.addTemps(batch);
+        return size;
+    }
+
+    private void startSeries() {
+        if (storage.equals("CHUNKED")) {
+            series = new TemperatureSeriesAnalysis(null, StorageMode.CHUNKED);
+        } else {
+            series = new TemperatureSeriesAnalysis();
+        }
+        if (storage.equals("DOUBLE_PRESIZED")) {
+            series.ensureCapacity(MAX_SAMPLES);
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,72 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TempSeriesMetrics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Cheap calls with and without a TempSeriesMetrics listener attached, to
+ * show what the timing and counting cost on the hot path.
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=Instrumentation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationOverheadBenchmark {
+    @Param({"false", "true"})
+    private boolean instrumented;
+
+    private TemperatureSeriesAnalysis series;
+    private double[] batch;
+
+    @Setup
+    public void setUp() {
+        series = new TemperatureSeriesAnalysis(
+                Distribution.UNIFORM.generate(100_000));
+        series.findTempClosestToZero();
+        if (instrumented) {
+            series.setListener(new TempSeriesMetrics());
+        }
+        batch = Distribution.UNIFORM.generate(16);
+    }
+
+    @Benchmark
+    public double average() {
+        return series.average();
+    }
+
+    @Benchmark
+    public double min() {
+        return series.min();
+    }
+
+    @Benchmark
+    public double closest() {
+        return series.findTempClosestToValue(12.5);
+    }
+
+    @Benchmark
+    public int addSmallBatch() {
+        if (series.addTemps(batch) > 10_000_000) {
+            series.reset();
+        }
+        return series.addTemps(batch);
+    }
+}
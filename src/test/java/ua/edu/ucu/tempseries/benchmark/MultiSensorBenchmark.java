@@ -0,0 +1,101 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.MultiSensorSeries;
+import ua.edu.ucu.apps.tempseries.SensorStatistics;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Statistics and nearest values of many small sensors, one
+ * TemperatureSeriesAnalysis each versus one packed MultiSensorSeries. The
+ * separate series are asked for the statistics of their whole index range,
+ * which scans them instead of returning their running totals.
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=MultiSensor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiSensorBenchmark {
+    @Param({"10000"})
+    private int sensors;
+
+    @Param({"100", "1000"})
+    private int samples;
+
+    private TemperatureSeriesAnalysis[] separate;
+    private MultiSensorSeries packed;
+    private MultiSensorSeries packedParallel;
+
+    @Setup
+    public void setUp() {
+        double[] temps = Distribution.UNIFORM.generate(sensors * samples);
+        separate = new TemperatureSeriesAnalysis[sensors];
+        packed = new MultiSensorSeries();
+        packedParallel = new MultiSensorSeries(1);
+        for (int s = 0; s < sensors; s++) {
+            double[] sensor = Arrays.copyOfRange(temps, s * samples,
+                    (s + 1) * samples);
+            separate[s] = new TemperatureSeriesAnalysis(sensor);
+            packed.addSensor(sensor);
+            packedParallel.addSensor(sensor);
+        }
+    }
+
+    @Benchmark
+    public TempSummaryStatistics[] separateStatistics() {
+        TempSummaryStatistics[] result =
+                new TempSummaryStatistics[sensors];
+        for (int s = 0; s < sensors; s++) {
+            result[s] = separate[s].summaryStatistics(0, samples);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public SensorStatistics packedStatistics() {
+        return packed.summaryStatistics();
+    }
+
+    @Benchmark
+    public SensorStatistics packedParallelStatistics() {
+        return packedParallel.summaryStatistics();
+    }
+
+    /*
+     * A fresh copy per sensor, since a series caches its sorted index and
+     * would answer later queries from it.
+     */
+    @Benchmark
+    public double[] separateClosest() {
+        double[] result = new double[sensors];
+        for (int s = 0; s < sensors; s++) {
+            result[s] = new TemperatureSeriesAnalysis(separate[s].getTsa())
+                    .findTempClosestToValue(12.5);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double[] packedClosest() {
+        return packed.findTempsClosestToValue(12.5);
+    }
+}
@@ -0,0 +1,72 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * p50/p95/p99 by sorting a copy, by selection, and from the KLL sketch.
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=Percentile
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercentileBenchmark {
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    @Param({"1000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"UNIFORM", "ALL_EQUAL"})
+    private Distribution distribution;
+
+    private double[] temps;
+    private TemperatureSeriesAnalysis sketched;
+
+    @Setup
+    public void setUp() {
+        temps = distribution.generate(size);
+        sketched = new TemperatureSeriesAnalysis(temps);
+        sketched.enableQuantileSketch();
+    }
+
+    @Benchmark
+    public double[] sortCopy() {
+        double[] sorted = new TemperatureSeriesAnalysis(temps).sortTemps();
+        double[] result = new double[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            result[i] = sorted[(int) (PERCENTILES[i] / 100 * (size - 1))];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double[] select() {
+        return new TemperatureSeriesAnalysis(temps).percentiles(PERCENTILES);
+    }
+
+    @Benchmark
+    public double[] sketch() {
+        double[] result = new double[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            result[i] = sketched.approximatePercentile(PERCENTILES[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,96 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TempSeriesStore;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Reopening a TempSeriesStore from a snapshot versus replaying its whole
+ * log, and rebuilding the series from an array in memory for reference.
+ * Each restore ends with summaryStatistics().
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=SnapshotRestore
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotRestoreBenchmark {
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    private double[] temps;
+    private Path snapshotted;
+    private Path logged;
+
+    @Setup
+    public void setUp() throws IOException {
+        temps = Distribution.UNIFORM.generate(size);
+        snapshotted = Files.createTempDirectory("snapshotted");
+        try (TempSeriesStore store = TempSeriesStore.open(snapshotted)) {
+            store.addTemps(temps);
+            store.snapshot();
+        }
+        logged = Files.createTempDirectory("logged");
+        try (TempSeriesStore store = TempSeriesStore.open(logged,
+                TempSeriesStore.DEFAULT_SYNC_SAMPLES, Integer.MAX_VALUE)) {
+            store.addTemps(temps);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delete(snapshotted);
+        delete(logged);
+    }
+
+    @Benchmark
+    public TempSummaryStatistics restoreSnapshot() throws IOException {
+        try (TempSeriesStore store = TempSeriesStore.open(snapshotted)) {
+            return store.series().summaryStatistics();
+        }
+    }
+
+    @Benchmark
+    public TempSummaryStatistics replayLog() throws IOException {
+        try (TempSeriesStore store = TempSeriesStore.open(logged)) {
+            return store.series().summaryStatistics();
+        }
+    }
+
+    @Benchmark
+    public TempSummaryStatistics rebuildFromArray() {
+        return new TemperatureSeriesAnalysis(temps).summaryStatistics();
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files
+                    .sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Statistics over a quarter of the series: copying the slice into a new
+ * TemperatureSeriesAnalysis, a pass over the range, and the range index.
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=SubRangeStatistics
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubRangeStatisticsBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    private int size;
+
+    private double[] temps;
+    private TemperatureSeriesAnalysis plain;
+    private TemperatureSeriesAnalysis indexed;
+    private TempAccumulator holder;
+    private int from;
+    private int to;
+
+    @Setup
+    public void setUp() {
+        temps = Distribution.UNIFORM.generate(size);
+        plain = new TemperatureSeriesAnalysis(temps);
+        indexed = new TemperatureSeriesAnalysis(temps);
+        indexed.enableRangeIndex();
+        holder = new TempAccumulator();
+        from = size / 4;
+        to = size / 2;
+    }
+
+    @Benchmark
+    public TempSummaryStatistics copySlice() {
+        return new TemperatureSeriesAnalysis(
+                Arrays.copyOfRange(temps, from, to)).summaryStatistics();
+    }
+
+    @Benchmark
+    public TempAccumulator scanRange() {
+        return plain.summaryStatistics(from, to, holder);
+    }
+
+    @Benchmark
+    public TempAccumulator rangeIndex() {
+        return indexed.summaryStatistics(from, to, holder);
+    }
+}
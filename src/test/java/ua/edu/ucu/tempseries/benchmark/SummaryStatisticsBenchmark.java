@@ -0,0 +1,87 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Fused single-pass summaryStatistics() against the previous multi-pass
+ * computation (average, deviation with a second average, min, max).
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=SummaryStatistics
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SummaryStatisticsBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    private int size;
+
+    private double[] temps;
+    private TemperatureSeriesAnalysis analysis;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        temps = new double[size];
+        for (int i = 0; i < size; i++) {
+            temps[i] = random.nextDouble() * 80 - 40;
+        }
+        analysis = new TemperatureSeriesAnalysis(temps);
+    }
+
+    @Benchmark
+    public TempSummaryStatistics fused() {
+        return analysis.summaryStatistics();
+    }
+
+    @Benchmark
+    public TempSummaryStatistics multiPass() {
+        double avg = average(temps);
+        double sum = 0;
+        double avgAgain = average(temps);
+        for (double temp : temps) {
+            sum += (temp - avgAgain) * (temp - avgAgain);
+        }
+        double dev = Math.sqrt(sum / temps.length);
+        double min = Double.MAX_VALUE;
+        for (double temp : temps) {
+            if (temp < min) {
+                min = temp;
+            }
+        }
+        double max = -Double.MAX_VALUE;
+        for (double temp : temps) {
+            if (temp > max) {
+                max = temp;
+            }
+        }
+        return new TempSummaryStatistics(avg, dev, min, max);
+    }
+
+    private static double average(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+}
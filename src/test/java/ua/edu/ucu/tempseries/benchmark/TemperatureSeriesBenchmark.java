@@ -0,0 +1,135 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Every public query of TemperatureSeriesAnalysis over series of 1K to 100M
+ * samples. "Cold" benchmarks run on a freshly built instance so that they
+ * include building the lazily cached sorted index.
+ *
+ * Full run: mvn -P benchmark -DskipTests verify
+ *     -Djmh.args="TemperatureSeriesBenchmark -rf json -rff bench.json"
+ * The committed baseline is benchmarks/baseline.json; it was produced with
+ * -p size=1000,1000000 -f 1 -wi 2 -w 1 -i 3 -r 1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class TemperatureSeriesBenchmark {
+    private static final int INGEST_BATCH = 1000;
+    private static final double RANGE_LOW = -10.0;
+    private static final double RANGE_HIGH = 10.0;
+    private static final double TARGET = 7.25;
+
+    @Param({"1000", "1000000", "10000000", "100000000"})
+    private int size;
+
+    @Param({"UNIFORM", "SORTED", "ALL_EQUAL", "HEAVY_DUPLICATES"})
+    private Distribution distribution;
+
+    private double[] temps;
+    private double[] batch;
+    private TemperatureSeriesAnalysis warm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        temps = distribution.generate(size);
+        batch = distribution.generate(INGEST_BATCH);
+        warm = new TemperatureSeriesAnalysis(temps);
+        warm.sortTemps();
+    }
+
+    @State(Scope.Thread)
+    public static class Cold {
+        private TemperatureSeriesAnalysis analysis;
+
+        @Setup(Level.Invocation)
+        public void setUp(TemperatureSeriesBenchmark series) {
+            analysis = new TemperatureSeriesAnalysis(series.temps);
+        }
+    }
+
+    @Benchmark
+    public TemperatureSeriesAnalysis construct() {
+        return new TemperatureSeriesAnalysis(temps);
+    }
+
+    @Benchmark
+    public double average() {
+        return warm.average();
+    }
+
+    @Benchmark
+    public double deviation() {
+        return warm.deviation();
+    }
+
+    @Benchmark
+    public double minMax() {
+        return warm.min() + warm.max();
+    }
+
+    @Benchmark
+    public TempSummaryStatistics summaryStatistics() {
+        return warm.summaryStatistics();
+    }
+
+    @Benchmark
+    public double closestToValue() {
+        return warm.findTempClosestToValue(TARGET);
+    }
+
+    @Benchmark
+    public double closestToValueCold(Cold cold) {
+        return cold.analysis.findTempClosestToValue(TARGET);
+    }
+
+    @Benchmark
+    public double[] tempsInRange() {
+        return warm.findTempsInRange(RANGE_LOW, RANGE_HIGH);
+    }
+
+    @Benchmark
+    public double[] tempsInRangeCold(Cold cold) {
+        return cold.analysis.findTempsInRange(RANGE_LOW, RANGE_HIGH);
+    }
+
+    @Benchmark
+    public double[] sortTemps() {
+        return warm.sortTemps();
+    }
+
+    @Benchmark
+    public double[] sortTempsCold(Cold cold) {
+        return cold.analysis.sortTemps();
+    }
+
+    @Benchmark
+    public int addTempsIngest() {
+        TemperatureSeriesAnalysis analysis = new TemperatureSeriesAnalysis();
+        int added = 0;
+        while (added < size) {
+            added = analysis.addTemps(batch);
+        }
+        return added;
+    }
+}
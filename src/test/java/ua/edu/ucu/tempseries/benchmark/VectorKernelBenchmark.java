@@ -0,0 +1,91 @@
+package ua.edu.ucu.tempseries.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ua.edu.ucu.apps.tempseries.TempAccumulator;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+
+/**
+ * Scan kernels with the scalar and the Vector API implementation. Every
+ * kernels value runs in its own fork, and the system property is set
+ * before the library is first used there.
+ *
+ * Run with: mvn -P benchmark -DskipTests verify -Djmh.args=VectorKernel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorKernelBenchmark {
+    private static final double RANGE_LOW = -10.0;
+    private static final double RANGE_HIGH = 10.0;
+    private static final double TARGET = 7.25;
+
+    @Param({"scalar", "vector"})
+    private String kernels;
+
+    @Param({"1000000"})
+    private int size;
+
+    private double[] temps;
+    private TemperatureSeriesAnalysis analysis;
+    private TemperatureSeriesAnalysis mapped;
+    private TempAccumulator holder;
+    private Path file;
+
+    @Setup
+    public void setUp() throws Exception {
+        System.setProperty("ua.edu.ucu.tempseries.kernels", kernels);
+        temps = Distribution.UNIFORM.generate(size);
+        analysis = new TemperatureSeriesAnalysis(temps);
+        holder = new TempAccumulator();
+        file = Files.createTempFile("kernels", ".bin");
+        mapped = TemperatureSeriesAnalysis.mapped(file);
+        mapped.addTemps(temps);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        mapped.close();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public TempAccumulator statistics() {
+        return new TemperatureSeriesAnalysis(temps)
+                .summaryStatistics(holder);
+    }
+
+    @Benchmark
+    public int countInRange() {
+        return analysis.query().inRange(RANGE_LOW, RANGE_HIGH).count();
+    }
+
+    @Benchmark
+    public TempAccumulator filteredStatistics() {
+        return analysis.query().inRange(RANGE_LOW, RANGE_HIGH)
+                .summaryStatistics(holder);
+    }
+
+    @Benchmark
+    public double closestOffHeap() {
+        return mapped.findTempClosestToValue(TARGET);
+    }
+}
@@ -0,0 +1,193 @@
+package ua.edu.ucu.tempseries.server;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ua.edu.ucu.apps.tempseries.TempSummaryStatistics;
+import ua.edu.ucu.apps.tempseries.TemperatureSeriesAnalysis;
+import ua.edu.ucu.apps.tempseries.server.TempResponse;
+import ua.edu.ucu.apps.tempseries.server.TempSeriesClient;
+import ua.edu.ucu.apps.tempseries.server.TempSeriesLoadGenerator;
+import ua.edu.ucu.apps.tempseries.server.TempSeriesServer;
+
+public class TempSeriesServerTest {
+    private TempSeriesServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = TempSeriesServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testServesHostedSeries() throws IOException {
+        double[] temperatureSeries = {3.0, -5.0, 1.0, 5.0};
+        server.host("kyiv", new TemperatureSeriesAnalysis(temperatureSeries));
+        try (TempSeriesClient client = TempSeriesClient.connect(server.getAddress())) {
+            TempSummaryStatistics stats = client.summaryStatistics("kyiv");
+            assertEquals(1.0, stats.getAvgTemp(), 0.00001);
+            assertEquals(-5.0, stats.getMinTemp(), 0.0);
+            assertEquals(5.0, stats.getMaxTemp(), 0.0);
+            assertEquals(1.0, client.findTempClosestToValue("kyiv", 0.0), 0.0);
+            assertArrayEquals(new double[] {1.0, 3.0}, client.findTempsInRange("kyiv", 0.0, 4.0), 0.0);
+            assertEquals(6, client.addTemps("kyiv", 7.0, -1.0));
+            assertEquals(7.0, client.summaryStatistics("kyiv").getMaxTemp(), 0.0);
+        }
+    }
+
+    @Test
+    public void testPipelinedRequestsAnswerInOrder() throws IOException {
+        try (TempSeriesClient client = TempSeriesClient.connect(server.getAddress())) {
+            for (int i = 0; i < 100; i++) {
+                client.sendAddTemps("lviv", new double[] {i, -i}, 0, 2);
+                client.sendFindTempClosestToValue("lviv", i + 0.25);
+            }
+            client.sendSummaryStatistics("lviv");
+            client.flush();
+            for (int i = 0; i < 100; i++) {
+                assertEquals(2 * (i + 1), client.receive().getSize());
+                assertEquals(i, client.receive().getTemp(), 0.0);
+            }
+            assertEquals(0.0, client.receive().getStatistics().getAvgTemp(), 0.00001);
+        }
+    }
+
+    @Test
+    public void testErrorsAreReportedPerRequest() throws IOException {
+        try (TempSeriesClient client = TempSeriesClient.connect(server.getAddress())) {
+            client.sendSummaryStatistics("missing");
+            client.sendAddTemps("odesa", new double[] {2.0}, 0, 1);
+            client.sendFindTempsInRange("odesa", 5.0, 6.0);
+            TempResponse missing = client.receive();
+            assertTrue(missing.isError());
+            try {
+                missing.getStatistics();
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("Unknown series!", e.getMessage());
+            }
+            assertEquals(1, client.receive().getSize());
+            assertEquals(0, client.receive().getTemps().length);
+        }
+    }
+
+    @Test
+    public void testBadFrameLengthsCloseTheConnection() throws IOException {
+        for (int length : new int[] {-5, 0, Integer.MAX_VALUE}) {
+            try (SocketChannel raw = SocketChannel.open(server.getAddress())) {
+                raw.write(ByteBuffer.allocate(Integer.BYTES + 1).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(length).put((byte) 2).flip());
+                assertEquals(-1, raw.read(ByteBuffer.allocate(16)));
+            }
+        }
+        try (TempSeriesClient client = TempSeriesClient.connect(server.getAddress())) {
+            assertEquals(1, client.addTemps("still-up", 1.0));
+        }
+    }
+
+    @Test
+    public void testMalformedFramesAreAnsweredWithErrors() throws IOException {
+        try (SocketChannel raw = SocketChannel.open(server.getAddress())) {
+            ByteBuffer requests = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+            requests.putInt(1).put((byte) 2);
+            requests.putInt(3).put((byte) 2).putShort((short) -1);
+            requests.putInt(3).put((byte) 2).putShort((short) 40);
+            raw.write(requests.flip());
+            for (int i = 0; i < 3; i++) {
+                ByteBuffer frame = readFrame(raw);
+                assertEquals(2, frame.get());
+                assertEquals(1, frame.get());
+            }
+        }
+        try (TempSeriesClient client = TempSeriesClient.connect(server.getAddress())) {
+            assertEquals(2, client.addTemps("still-up", 1.0, 2.0));
+        }
+    }
+
+    private static ByteBuffer readFrame(SocketChannel raw) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (length.hasRemaining()) {
+            assertTrue(raw.read(length) >= 0);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(length.getInt(0)).order(ByteOrder.LITTLE_ENDIAN);
+        while (frame.hasRemaining()) {
+            assertTrue(raw.read(frame) >= 0);
+        }
+        return frame.flip();
+    }
+
+    @Test
+    public void testLargeBatchesAcrossFrames() throws IOException {
+        double[] temps = new double[100_000];
+        for (int i = 0; i < temps.length; i++) {
+            temps[i] = i % 50;
+        }
+        try (TempSeriesClient client = TempSeriesClient.connect(server.getAddress())) {
+            assertEquals(temps.length, client.addTemps("big", temps));
+            assertEquals(2000, client.findTempsInRange("big", 10.0, 10.0).length);
+        }
+    }
+
+    @Test
+    public void testOversizedFramesAreRefused() throws IOException {
+        double[] temps = new double[(1 << 26) / Double.BYTES];
+        server.host("huge", new TemperatureSeriesAnalysis(temps));
+        try (TempSeriesClient client = TempSeriesClient.connect(server.getAddress())) {
+            client.sendFindTempsInRange("huge", -1.0, 1.0);
+            TempResponse range = client.receive();
+            assertTrue(range.isError());
+            try {
+                range.getTemps();
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("The frame is too large!", e.getMessage());
+            }
+            try {
+                client.sendAddTemps("huge", temps, 0, temps.length);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("The frame is too large!", e.getMessage());
+            }
+            assertEquals(temps.length + 1, client.addTemps("huge", 1.0));
+        }
+    }
+
+    @Test
+    public void testUnixDomainSocket() throws IOException {
+        Path socket = Files.createTempDirectory("tempseries").resolve("server.sock");
+        try (TempSeriesServer unixServer = TempSeriesServer.start(UnixDomainSocketAddress.of(socket));
+                TempSeriesClient client = TempSeriesClient.connect(unixServer.getAddress())) {
+            assertEquals(3, client.addTemps("unix", 1.0, 2.0, 3.0));
+            assertEquals(2.0, client.summaryStatistics("unix").getAvgTemp(), 0.00001);
+        }
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    public void testLoadGeneratorReportsLatencies() throws Exception {
+        TempSeriesLoadGenerator.Result result =
+                new TempSeriesLoadGenerator(server.getAddress(), 2, 200, 8, 4).run();
+        assertEquals(400, result.getRequests());
+        assertEquals(0, result.getErrors());
+        assertTrue(result.getThroughput() > 0);
+        assertTrue(result.getLatencyNanos(99) >= result.getLatencyNanos(50));
+        assertTrue(result.getLatencyNanos(50) > 0);
+    }
+}